@@ -1,6 +1,7 @@
 plugins {
     alias(libs.plugins.android.application)
     alias(libs.plugins.google.android.libraries.mapsplatform.secrets.gradle.plugin)
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -36,6 +37,13 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    // The load tests' Open Charge Map stand-in serves the same recorded fixture as the unit tests
+    sourceSets {
+        getByName("androidTest") {
+            resources.srcDir("src/test/resources")
+        }
+    }
 }
 
 dependencies {
@@ -46,10 +54,15 @@ dependencies {
     implementation(libs.constraintlayout)
     implementation(libs.play.services.maps)
     implementation(libs.places)
-    implementation("com.squareup.picasso:picasso:2.71828")
     implementation("com.android.volley:volley:1.2.1")
+    implementation("com.google.code.gson:gson:2.10.1") // Streaming JSON reader for OCM responses
     implementation("com.google.android.gms:play-services-maps:18.2.0")
     implementation("com.google.android.gms:play-services-location:19.1.0")
+    implementation(libs.work.runtime) // Background sync of saved regions
+
+    // Installs the Baseline Profile on release builds, so startup code is compiled ahead of time
+    implementation(libs.profileinstaller)
+    baselineProfile(project(":macrobenchmark"))
 
     // Testing dependencies
     testImplementation(libs.junit) // For unit tests
@@ -61,6 +74,7 @@ dependencies {
     // Mocking library for unit tests
     testImplementation("org.mockito:mockito-core:4.0.0")
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.json:json:20231013") // Real org.json for DOM parsing comparisons on the JVM
 
     // Add the Places SDK for testing
     androidTestImplementation("com.google.android.libraries.places:places:latest_version")
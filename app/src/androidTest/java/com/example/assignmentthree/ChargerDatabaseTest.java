@@ -0,0 +1,135 @@
+package com.example.assignmentthree;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Instrumentation tests for the ChargerDatabase class, run against the device's SQLite on an in-memory database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChargerDatabaseTest {
+    private static final LatLng CENTRE = new LatLng(-37.787, 175.279);
+
+    private ChargerDatabase database;
+
+    /**
+     * Opens an empty in-memory database.
+     */
+    @Before
+    public void setUp() {
+        database = new ChargerDatabase(ApplicationProvider.getApplicationContext(), null);
+    }
+
+    /**
+     * Closes the database.
+     */
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * Tests that the nearest chargers of a downloaded area are found, nearest first, with their tariffs.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting.
+     */
+    @Test
+    public void testNearestInCoveredArea() throws InterruptedException {
+        List<EVCharger> chargers = row(10, 0.001);
+        database.putAll(chargers, CENTRE, 5_000);
+
+        List<EVCharger> nearest = nearest(CENTRE, 3);
+        assertNotNull(nearest);
+        assertEquals(3, nearest.size());
+        for (int i = 0; i < nearest.size(); i++) {
+            assertEquals(i + 1, nearest.get(i).getId());
+        }
+        assertEquals(0.35, nearest.get(0).getTariff().getPerKwh(), 1e-9);
+        assertTrue(Double.isNaN(nearest.get(0).getTariff().getPerMinute()));
+    }
+
+    /**
+     * Tests that areas outside any complete download, or with too few chargers, are not answered.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting.
+     */
+    @Test
+    public void testUncoveredArea() throws InterruptedException {
+        // An incomplete download adds chargers but covers nothing
+        database.putAll(row(10, 0.001), CENTRE, 0);
+        assertNull(nearest(CENTRE, 3));
+
+        database.putAll(row(10, 0.001), CENTRE, 5_000);
+        assertNull(nearest(new LatLng(-36.85, 174.76), 3));
+        assertNull(nearest(CENTRE, 11));
+    }
+
+    /**
+     * Tests that downloading an area again replaces chargers by id and removes those no longer returned.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting.
+     */
+    @Test
+    public void testUpsertAndRemoval() throws InterruptedException {
+        database.putAll(row(10, 0.001), CENTRE, 5_000);
+
+        List<EVCharger> updated = new ArrayList<>();
+        for (EVCharger charger : row(8, 0.001)) {
+            updated.add(new EVCharger(charger.getId(), "Updated", charger.getDescription(), charger.getAddress(),
+                    charger.getPoints(), Tariff.FREE, charger.getLocation()));
+        }
+        database.putAll(updated, CENTRE, 5_000);
+
+        assertNull(nearest(CENTRE, 9));
+        List<EVCharger> nearest = nearest(CENTRE, 8);
+        assertNotNull(nearest);
+        for (EVCharger charger : nearest) {
+            assertEquals("Updated", charger.getTitle());
+            assertTrue(charger.getTariff().isFree());
+        }
+    }
+
+    /**
+     * Builds a row of chargers going east from the centre, with ids from 1, nearest first.
+     */
+    private static List<EVCharger> row(int count, double spacing) {
+        List<EVCharger> chargers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LatLng location = new LatLng(CENTRE.latitude, CENTRE.longitude + i * spacing);
+            chargers.add(new EVCharger(i + 1, "Charger " + (i + 1), "Description", "Address", 2,
+                    Tariff.ofPerKwh(0.35), location));
+        }
+        return chargers;
+    }
+
+    /**
+     * Runs a nearest query and waits for its result.
+     */
+    private List<EVCharger> nearest(LatLng latLng, int k) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<List<EVCharger>> result = new ArrayList<>();
+        database.nearestIfCovered(latLng, k, chargers -> {
+            result.add(chargers);
+            done.countDown();
+        });
+        assertTrue("The query did not finish", done.await(5, TimeUnit.SECONDS));
+        return result.get(0);
+    }
+}
@@ -97,6 +97,28 @@ public class DetailActivityInstrumentationTest {
         onView(withId(R.id.chargerDescription)).check(matches(withText(evCharger.getDescription())));
         onView(withId(R.id.chargerLocation)).check(matches(withText("Location: " + evCharger.getLocation().latitude + ", " + evCharger.getLocation().longitude)));
         onView(withId(R.id.chargerAddress)).check(matches(withText("Address: " + evCharger.getAddress())));
-        onView(withId(R.id.chargerPoints)).check(matches(withText("Points: " + evCharger.getPoints() + " and Cost: $" + evCharger.getCost() + "/kWh")));
+        onView(withId(R.id.chargerPoints)).check(matches(withText("Points: " + evCharger.getPoints() + " and Cost: " + evCharger.getTariff().describe())));
+    }
+
+    /**
+     * This test verifies that an EVCharger passed through the Intent is displayed straight away,
+     * without waiting for the Open Charge Map API.
+     */
+    @Test
+    public void testDisplayChargerPassedInIntent() {
+        // Example EVCharger as it would be attached to a map marker
+        EVCharger evCharger = new EVCharger(42, "intent-title", "intent-desc", "intent-address", 2, 0.5, new LatLng(-36.85, 174.76));
+
+        Context context = ApplicationProvider.getApplicationContext();
+        Intent intent = new Intent(context, DetailActivity.class);
+        intent.putExtra(DetailActivity.EXTRA_CHARGER, evCharger);
+
+        // Launch the DetailActivity with the provided intent
+        ActivityScenario.launch(intent);
+
+        // Validate that the TextViews display the details of the passed EVCharger
+        onView(withId(R.id.chargerTitle)).check(matches(withText(evCharger.getTitle())));
+        onView(withId(R.id.chargerDescription)).check(matches(withText(evCharger.getDescription())));
+        onView(withId(R.id.chargerAddress)).check(matches(withText("Address: " + evCharger.getAddress())));
     }
 }
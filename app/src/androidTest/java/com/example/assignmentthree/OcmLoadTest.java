@@ -0,0 +1,262 @@
+package com.example.assignmentthree;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.TextView;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.rule.GrantPermissionRule;
+
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * End-to-end load tests against the local {@link OcmStandInServer} instead of the live Open Charge Map API.
+ * Hundreds of searches and detail page opens are driven through the real app code, and the median and
+ * 95th percentile of time-to-markers and time-to-detail are checked against fixed budgets, so latency
+ * regressions show up without depending on the live service.
+ *
+ * <p>Searches go to random locations spread over New Zealand, so most miss the caches and the spatial
+ * index, as the first search of an area does for a user.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class OcmLoadTest {
+    private static final String TAG = "EV_LOAD";
+
+    private static final int SEARCHES = 200;
+    private static final int DETAIL_OPENS = 100;
+
+    // Backend behaviour: a moderately slow, occasionally failing server with realistic payloads
+    private static final long LATENCY_MILLIS = 100;
+    private static final double ERROR_RATE = 0.02;
+    private static final int PADDING_BYTES = 512;
+
+    // Budgets, including the stand-in's latency
+    private static final long MARKERS_P50_BUDGET_MILLIS = 500;
+    private static final long MARKERS_P95_BUDGET_MILLIS = 1500;
+    private static final long DETAIL_P50_BUDGET_MILLIS = 1000;
+    private static final long DETAIL_P95_BUDGET_MILLIS = 2500;
+
+    // A search or detail page that takes longer than this is counted as failed
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * Grants the location permission, so the permission dialog does not cover MapsActivity.
+     */
+    @Rule
+    public GrantPermissionRule permissionRule = GrantPermissionRule.grant(Manifest.permission.ACCESS_FINE_LOCATION);
+
+    private OcmStandInServer server;
+    private final Random random = new Random(7);
+
+    /**
+     * Starts the stand-in server and points the app at it.
+     *
+     * @throws IOException if the server cannot be started.
+     * @throws JSONException if the fixture cannot be read.
+     */
+    @Before
+    public void setUp() throws IOException, JSONException {
+        server = new OcmStandInServer();
+        server.setLatencyMillis(LATENCY_MILLIS);
+        server.setErrorRate(ERROR_RATE);
+        server.setPaddingBytes(PADDING_BYTES);
+        OcmEndpoint.setBaseUrl(server.start());
+
+        // Start from empty caches and no offline data, so earlier tests and runs do not answer searches locally
+        clearLocalChargers();
+    }
+
+    /**
+     * Points the app back at the live API, stops the server and forgets the chargers it served.
+     *
+     * @throws IOException if the server cannot be stopped.
+     */
+    @After
+    public void tearDown() throws IOException {
+        OcmEndpoint.setBaseUrl(null);
+        server.shutdown();
+
+        // Do not leave the stand-in's chargers behind for the app
+        clearLocalChargers();
+    }
+
+    /**
+     * Clears every place chargers are kept locally: the index, the database, the response cache and the offline store.
+     */
+    private static void clearLocalChargers() {
+        Context context = ApplicationProvider.getApplicationContext();
+        ChargerIndex.getInstance().clear();
+        ChargerDatabase.getInstance(context).clear();
+        ChargerCache.getInstance(context).clear();
+        OfflineChargers.getInstance(context).clear();
+    }
+
+    /**
+     * Measures the time from starting a search to its markers being placed on the map.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting.
+     */
+    @Test
+    public void testTimeToMarkers() throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        int failures = 0;
+
+        try (ActivityScenario<MapsActivity> scenario = ActivityScenario.launch(MapsActivity.class)) {
+            waitForMap(scenario);
+
+            for (int i = 0; i < SEARCHES; i++) {
+                LatLng location = randomLocation();
+                CountDownLatch shown = new CountDownLatch(1);
+                long[] times = new long[2];
+                MyMap.EVSiteMarkersObserver[] observer = new MyMap.EVSiteMarkersObserver[1];
+
+                scenario.onActivity(activity -> {
+                    MyMap map = activity.getMyMap();
+                    boolean[] delivered = new boolean[1];
+
+                    // Only markers placed after the results arrived count, not a refresh for the camera move
+                    observer[0] = chargers -> {
+                        if (delivered[0] && shown.getCount() > 0) {
+                            times[1] = SystemClock.elapsedRealtimeNanos();
+                            shown.countDown();
+                        }
+                    };
+                    map.addEVSiteMarkersObserver(observer[0]);
+
+                    times[0] = SystemClock.elapsedRealtimeNanos();
+                    map.moveTo(CameraPosition.fromLatLngZoom(location, MyMap.CITY_ZOOM));
+                    activity.getSearching().searchNear(location, chargers -> {
+                        delivered[0] = true;
+                        map.addEVSiteMarkers(chargers);
+                    });
+                });
+
+                if (shown.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    registry.recordTime("markers", times[1] - times[0]);
+                } else {
+                    failures++;
+                }
+                scenario.onActivity(activity -> activity.getMyMap().removeEVSiteMarkersObserver(observer[0]));
+            }
+        }
+
+        report(registry, failures);
+        assertWithinBudget(registry.getHistogram("markers"), MARKERS_P50_BUDGET_MILLIS, MARKERS_P95_BUDGET_MILLIS);
+
+        // Without cached or offline data, only a failed request may leave a search without markers.
+        assertTrue("Searches failed without a server error: " + failures + " > " + server.getErrorCount(),
+                failures <= server.getErrorCount());
+    }
+
+    /**
+     * Measures the time from opening the detail page of a charger that has not been downloaded
+     * to its details being shown.
+     */
+    @Test
+    public void testTimeToDetail() {
+        Context context = ApplicationProvider.getApplicationContext();
+        MetricsRegistry registry = new MetricsRegistry();
+        int failures = 0;
+
+        for (int i = 0; i < DETAIL_OPENS; i++) {
+            LatLng location = randomLocation();
+            Intent intent = new Intent(context, DetailActivity.class);
+            intent.putExtra("latitude", location.latitude);
+            intent.putExtra("longitude", location.longitude);
+
+            long start = SystemClock.elapsedRealtimeNanos();
+            try (ActivityScenario<DetailActivity> scenario = ActivityScenario.launch(intent)) {
+                long shownAt = waitForTitle(scenario, start + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS));
+                if (shownAt > 0) {
+                    registry.recordTime("detail", shownAt - start);
+                } else {
+                    failures++;
+                }
+            }
+        }
+
+        report(registry, failures);
+        assertWithinBudget(registry.getHistogram("detail"), DETAIL_P50_BUDGET_MILLIS, DETAIL_P95_BUDGET_MILLIS);
+        assertTrue("Detail pages failed without a server error: " + failures + " > " + server.getErrorCount(),
+                failures <= server.getErrorCount());
+    }
+
+    /**
+     * Waits until MapsActivity's map is ready.
+     */
+    private void waitForMap(ActivityScenario<MapsActivity> scenario) throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MILLIS;
+        boolean[] ready = new boolean[1];
+        while (!ready[0] && SystemClock.elapsedRealtime() < deadline) {
+            scenario.onActivity(activity -> ready[0] = activity.getMyMap() != null);
+            Thread.sleep(50);
+        }
+        assertTrue("The map did not become ready", ready[0]);
+    }
+
+    /**
+     * Polls the detail page until it shows a title.
+     *
+     * @return When the title was first seen, or 0 if it was not shown before the deadline.
+     */
+    private long waitForTitle(ActivityScenario<DetailActivity> scenario, long deadlineNanos) {
+        boolean[] shown = new boolean[1];
+        while (SystemClock.elapsedRealtimeNanos() < deadlineNanos) {
+            scenario.onActivity(activity ->
+                    shown[0] = ((TextView) activity.findViewById(R.id.chargerTitle)).getText().length() > 0);
+            if (shown[0]) {
+                return SystemClock.elapsedRealtimeNanos();
+            }
+            SystemClock.sleep(5);
+        }
+        return 0;
+    }
+
+    /**
+     * Picks a random location on land or near it in New Zealand.
+     */
+    private LatLng randomLocation() {
+        return new LatLng(-46 + random.nextDouble() * 11, 167 + random.nextDouble() * 11);
+    }
+
+    private void report(MetricsRegistry registry, int failures) {
+        for (String line : registry.summary()) {
+            Log.i(TAG, line);
+        }
+        int requests = server.getRequestCount();
+        Log.i(TAG, String.format(Locale.US, "failures %d, server requests %d, server errors %d, bytes per request %d",
+                failures, requests, server.getErrorCount(), requests > 0 ? server.getBytesSent() / requests : 0));
+    }
+
+    private static void assertWithinBudget(MetricsRegistry.Histogram histogram, long p50BudgetMillis, long p95BudgetMillis) {
+        assertNotNull("Nothing was measured", histogram);
+
+        // Histogram times are kept in microseconds
+        long p50 = histogram.getPercentile(50) / 1000;
+        long p95 = histogram.getPercentile(95) / 1000;
+        assertTrue("p50 " + p50 + " ms is over its budget of " + p50BudgetMillis + " ms", p50 <= p50BudgetMillis);
+        assertTrue("p95 " + p95 + " ms is over its budget of " + p95BudgetMillis + " ms", p95 <= p95BudgetMillis);
+    }
+}
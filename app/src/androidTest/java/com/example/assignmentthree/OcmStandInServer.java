@@ -0,0 +1,253 @@
+package com.example.assignmentthree;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * A local stand-in for the Open Charge Map POI API, serving the recorded fixture from a MockWebServer.
+ * Each answer is built from the recorded POIs, moved around the requested location (or into the requested
+ * bounding box) with ids derived from their position, so repeated queries of an area return the same
+ * chargers and different areas return different ones, like the live service. Latency, payload size and
+ * error rate can be set to model a slow or flaky backend. Responses are gzip-compressed when the client
+ * asks for it, and the body bytes sent are counted, so the payload of a search can be measured.
+ *
+ * <p>Point the app at it with {@code OcmEndpoint.setBaseUrl(server.start())}.</p>
+ */
+public class OcmStandInServer {
+    private static final String FIXTURE = "/ocm_poi_response.json";
+
+    // Spacing of the generated chargers around the query location
+    private static final double SPACING_DEGREES = 0.002;
+
+    private final MockWebServer server = new MockWebServer();
+    private final JSONArray fixture;
+    private final Random random = new Random(42);
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+    private volatile int paddingBytes;
+    private volatile int maxResults = 50;
+
+    /**
+     * Constructor. Reads the recorded fixture.
+     *
+     * @throws IOException if the fixture cannot be read.
+     * @throws JSONException if the fixture is not a JSON array.
+     */
+    public OcmStandInServer() throws IOException, JSONException {
+        try (InputStream in = OcmStandInServer.class.getResourceAsStream(FIXTURE)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + FIXTURE);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            fixture = new JSONArray(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    /**
+     * Sets how long each response takes, to model network and server time.
+     *
+     * @param latencyMillis The delay before the response body is sent.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Sets the share of requests answered with a server error.
+     *
+     * @param errorRate The error rate, from 0 to 1.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Sets extra comment text added to every POI, to model the larger payloads of busy areas.
+     *
+     * @param paddingBytes The number of extra characters per POI.
+     */
+    public void setPaddingBytes(int paddingBytes) {
+        this.paddingBytes = paddingBytes;
+    }
+
+    /**
+     * Sets the most POIs returned for a query, whatever its {@code maxresults}.
+     *
+     * @param maxResults The largest number of POIs per response.
+     */
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Starts the server. Must not be called on the main thread.
+     *
+     * @return The base URL to pass to {@link OcmEndpoint#setBaseUrl(String)}.
+     * @throws IOException if the server cannot be started.
+     */
+    public String start() throws IOException {
+        server.start();
+        return server.url("/v3/").toString();
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @throws IOException if the server cannot be stopped.
+     */
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /** @return The number of requests received. */
+    public int getRequestCount() { return requestCount.get(); }
+
+    /** @return The number of requests answered with an error. */
+    public int getErrorCount() { return errorCount.get(); }
+
+    /** @return The number of response body bytes sent, after any compression. */
+    public long getBytesSent() { return bytesSent.get(); }
+
+    private MockResponse respond(RecordedRequest request) {
+        requestCount.incrementAndGet();
+        HttpUrl url = request.getRequestUrl();
+        if (url == null || !url.encodedPath().endsWith("/poi/")) {
+            return new MockResponse().setResponseCode(404);
+        }
+
+        boolean fail;
+        synchronized (random) {
+            fail = random.nextDouble() < errorRate;
+        }
+        if (fail) {
+            errorCount.incrementAndGet();
+            return new MockResponse().setResponseCode(503).setBodyDelay(latencyMillis, TimeUnit.MILLISECONDS);
+        }
+
+        try {
+            Buffer body = new Buffer();
+            MockResponse response = new MockResponse()
+                    .setResponseCode(200)
+                    .setHeader("Content-Type", "application/json; charset=utf-8");
+
+            String acceptEncoding = request.getHeader("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                try (BufferedSink sink = Okio.buffer(new GzipSink(body))) {
+                    sink.writeUtf8(poisFor(url).toString());
+                }
+                response.setHeader("Content-Encoding", "gzip");
+            } else {
+                body.writeUtf8(poisFor(url).toString());
+            }
+
+            bytesSent.addAndGet(body.size());
+            return response
+                    .setBody(body)
+                    .setBodyDelay(latencyMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException | JSONException | RuntimeException e) {
+            return new MockResponse().setResponseCode(500).setBody(String.valueOf(e));
+        }
+    }
+
+    /**
+     * Builds the POIs for a query, laid out on a grid around its location or across its bounding box.
+     */
+    private JSONArray poisFor(HttpUrl url) throws JSONException {
+        String requested = url.queryParameter("maxresults");
+        int count = Math.min(maxResults, requested != null ? Integer.parseInt(requested) : 100);
+
+        double latitude;
+        double longitude;
+        double spacing = SPACING_DEGREES;
+        String box = url.queryParameter("boundingbox");
+        int side = (int) Math.ceil(Math.sqrt(Math.max(1, count)));
+        if (box != null) {
+            // "(lat1,lon1),(lat2,lon2)": spread the POIs over the box
+            String[] parts = box.replace("(", "").replace(")", "").split(",");
+            double lat1 = Double.parseDouble(parts[0]);
+            double lon1 = Double.parseDouble(parts[1]);
+            double lat2 = Double.parseDouble(parts[2]);
+            double lon2 = Double.parseDouble(parts[3]);
+            latitude = (lat1 + lat2) / 2;
+            longitude = (lon1 + lon2) / 2;
+            spacing = Math.abs(lat1 - lat2) / (side + 1);
+        } else {
+            latitude = Double.parseDouble(url.queryParameter("latitude"));
+            longitude = Double.parseDouble(url.queryParameter("longitude"));
+        }
+
+        // Snap to the grid, so overlapping queries produce the same chargers
+        double originLatitude = Math.round(latitude / spacing) * spacing;
+        double originLongitude = Math.round(longitude / spacing) * spacing;
+
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < paddingBytes; i++) {
+            padding.append('x');
+        }
+
+        JSONArray pois = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            // Lay the POIs out on a square grid centred on the origin
+            int row = i / side - side / 2;
+            int column = i % side - side / 2;
+            double poiLatitude = originLatitude + row * spacing;
+            double poiLongitude = originLongitude + column * spacing;
+
+            JSONObject poi = new JSONObject(fixture.getJSONObject(i % fixture.length()).toString());
+            poi.put("ID", idFor(poiLatitude, poiLongitude));
+            JSONObject address = poi.getJSONObject("AddressInfo");
+            address.put("Latitude", poiLatitude);
+            address.put("Longitude", poiLongitude);
+            if (paddingBytes > 0) {
+                poi.put("GeneralComments", padding.toString());
+            }
+            pois.put(poi);
+        }
+        return pois;
+    }
+
+    /**
+     * Derives a stable positive id from a position, at about a metre's precision.
+     */
+    private static int idFor(double latitude, double longitude) {
+        long lat = Math.round(latitude * 1e5);
+        long lon = Math.round(longitude * 1e5);
+        return (int) ((lat * 36_000_001L + lon) & Integer.MAX_VALUE) | 1;
+    }
+}
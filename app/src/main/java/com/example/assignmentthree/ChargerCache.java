@@ -0,0 +1,308 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A small disk-backed cache for Open Charge Map responses.
+ * The parsed chargers are stored as plain primitives and strings, so a hit needs no JSON parsing.
+ * Entries are keyed by a quantized latitude/longitude cell plus the query parameters,
+ * and carry the time they were stored so callers can apply a stale-while-revalidate policy:
+ * a stale entry is still served immediately while a fresh copy is fetched in the background.
+ */
+public class ChargerCache {
+    /** How long an entry is considered fresh. */
+    public static final long DEFAULT_TTL_MILLIS = 15 * 60 * 1000L;
+
+    /** Size of a search cell in degrees (roughly 1 km of latitude). */
+    public static final double CELL_SIZE_DEGREES = 0.01;
+
+    private static final String DIRECTORY_NAME = "ocm_chargers";
+    // Written first in every entry; entries in an older format are treated as misses.
+    private static final int FORMAT_VERSION = 0x45564332; // "EVC2"
+    private static final int MAX_ENTRIES = 256;
+
+    private static ChargerCache instance;
+
+    private final File directory;
+    private final long ttlMillis;
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * A cached list of chargers together with the time it was stored.
+     */
+    public static class Entry {
+        private final List<EVCharger> chargers;
+        private final long storedAt;
+        private final boolean fresh;
+
+        Entry(List<EVCharger> chargers, long storedAt, boolean fresh) {
+            this.chargers = chargers;
+            this.storedAt = storedAt;
+            this.fresh = fresh;
+        }
+
+        /**
+         * Gets the cached chargers.
+         *
+         * @return The chargers as they were parsed from the API response.
+         */
+        public List<EVCharger> getChargers() { return chargers; }
+
+        /**
+         * Gets the time the entry was written.
+         *
+         * @return The store time in milliseconds since the epoch.
+         */
+        public long getStoredAt() { return storedAt; }
+
+        /**
+         * Whether the entry is still within its time-to-live.
+         *
+         * @return True if the entry is fresh, false if it is stale and should be revalidated.
+         */
+        public boolean isFresh() { return fresh; }
+    }
+
+    /**
+     * Callback interface for asynchronous cache lookups.
+     */
+    public interface Callback {
+        /**
+         * Triggered on the main thread once the lookup has finished.
+         *
+         * @param entry The cached entry, or null if nothing is cached for the key.
+         */
+        void onResult(Entry entry);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context   The context used to locate the app's cache directory.
+     * @param ttlMillis The time-to-live of an entry in milliseconds.
+     */
+    public ChargerCache(Context context, long ttlMillis) {
+        this.directory = new File(context.getCacheDir(), DIRECTORY_NAME);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the shared cache instance, creating it on first use.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared {@code ChargerCache}.
+     */
+    public static synchronized ChargerCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChargerCache(context.getApplicationContext(), DEFAULT_TTL_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Snaps a location to the centre of its cache cell, so nearby searches share an entry.
+     *
+     * @param latLng The location to quantize.
+     * @return The centre of the cell containing the location.
+     */
+    public static LatLng quantize(LatLng latLng) {
+        double lat = (Math.floor(latLng.latitude / CELL_SIZE_DEGREES) + 0.5) * CELL_SIZE_DEGREES;
+        double lon = (Math.floor(latLng.longitude / CELL_SIZE_DEGREES) + 0.5) * CELL_SIZE_DEGREES;
+        return new LatLng(lat, lon);
+    }
+
+    /**
+     * Builds a cache key from a location and the query parameters used with it.
+     *
+     * @param latLng The (usually quantized) location of the query.
+     * @param params The remaining query parameters, e.g. {@code "maxresults=10"}.
+     * @return A key identifying the query.
+     */
+    public static String keyFor(LatLng latLng, String params) {
+        return String.format(Locale.US, "%.5f,%.5f?%s", latLng.latitude, latLng.longitude, params);
+    }
+
+    /**
+     * Looks up an entry on a background thread and delivers the result on the main thread.
+     *
+     * @param key      The cache key.
+     * @param callback The callback receiving the entry, or null on a miss.
+     */
+    public void get(String key, Callback callback) {
+        diskExecutor.execute(() -> {
+            Entry entry = read(key);
+            mainHandler.post(() -> callback.onResult(entry));
+        });
+    }
+
+    /**
+     * Stores the chargers for the given key on a background thread.
+     *
+     * @param key      The cache key.
+     * @param chargers The chargers to store.
+     */
+    public void put(String key, List<EVCharger> chargers) {
+        long storedAt = System.currentTimeMillis();
+        diskExecutor.execute(() -> write(key, chargers, storedAt));
+    }
+
+    /**
+     * Deletes every entry on the background thread, e.g. before tests.
+     */
+    public void clear() {
+        diskExecutor.execute(() -> {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        });
+    }
+
+    private Entry read(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long storedAt = in.readLong();
+
+            // Guard against two keys hashing to the same file name.
+            if (!key.equals(in.readUTF())) {
+                return null;
+            }
+
+            int count = in.readInt();
+            ArrayList<EVCharger> chargers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                chargers.add(readCharger(in));
+            }
+
+            boolean fresh = System.currentTimeMillis() - storedAt < ttlMillis;
+            return new Entry(chargers, storedAt, fresh);
+        } catch (IOException e) {
+            Log.e("EV_CACHE", "Error reading cache entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String key, List<EVCharger> chargers, long storedAt) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e("EV_CACHE", "Unable to create cache directory");
+            return;
+        }
+
+        File file = fileFor(key);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(storedAt);
+            out.writeUTF(key);
+            out.writeInt(chargers.size());
+            for (EVCharger charger : chargers) {
+                writeCharger(out, charger);
+            }
+        } catch (IOException e) {
+            Log.e("EV_CACHE", "Error writing cache entry: " + e.getMessage());
+            return;
+        }
+
+        trim();
+    }
+
+    private static void writeCharger(DataOutputStream out, EVCharger charger) throws IOException {
+        out.writeInt(charger.getId());
+        writeString(out, charger.getTitle());
+        writeString(out, charger.getDescription());
+        writeString(out, charger.getAddress());
+        out.writeInt(charger.getPoints());
+        Tariff tariff = charger.getTariff();
+        out.writeDouble(tariff.getPerKwh());
+        out.writeDouble(tariff.getPerMinute());
+        out.writeDouble(tariff.getFlatFee());
+        writeString(out, tariff.getCurrency() != null ? tariff.getCurrency() : "");
+        out.writeBoolean(tariff.isFree());
+        out.writeDouble(charger.getLocation().latitude);
+        out.writeDouble(charger.getLocation().longitude);
+    }
+
+    private static EVCharger readCharger(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        String title = readString(in);
+        String description = readString(in);
+        String address = readString(in);
+        int points = in.readInt();
+        double perKwh = in.readDouble();
+        double perMinute = in.readDouble();
+        double flatFee = in.readDouble();
+        String currency = readString(in);
+        Tariff tariff = new Tariff(perKwh, perMinute, flatFee, currency.isEmpty() ? null : currency, in.readBoolean());
+        LatLng location = new LatLng(in.readDouble(), in.readDouble());
+        return new EVCharger(id, title, description, address, points, tariff, location);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string; unlike {@link DataOutputStream#writeUTF} it has no 64 KB limit.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deletes the oldest entries once the cache grows beyond {@link #MAX_ENTRIES}.
+     */
+    private void trim() {
+        File[] files = directory.listFiles();
+        if (files == null || files.length <= MAX_ENTRIES) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_ENTRIES; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            files[i].delete();
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, Integer.toHexString(key.hashCode()));
+    }
+}
@@ -0,0 +1,549 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A SQLite store of downloaded chargers that outlives the process, unlike the in-memory {@link ChargerIndex}.
+ *
+ * <p>Chargers are upserted by their Open Charge Map id, one transaction per API response, and their
+ * positions are kept in an R*Tree virtual table so bounding-box lookups only visit nearby rows. Like the
+ * index, the store remembers which circles have been fully downloaded and when, so a search inside an
+ * area downloaded within {@link #MAX_AGE_MILLIS} can be answered without the network. The database
+ * runs in WAL mode, so a search is not held up by a response being written.</p>
+ *
+ * <p>It also holds the {@link SavedRegion}s that {@link RegionSyncWorker} keeps up to date.</p>
+ *
+ * <p>All work happens on a single background thread and results are delivered on the main thread.</p>
+ */
+public class ChargerDatabase extends SQLiteOpenHelper {
+    /** How long a downloaded area answers searches before it is downloaded again. */
+    public static final long MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /** How long chargers and areas that have not been downloaded again are kept. */
+    public static final long RETENTION_MILLIS = 30 * MAX_AGE_MILLIS;
+
+    private static final String DATABASE_NAME = "chargers.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String CHARGER_COLUMNS = "c.id, c.title, c.description, c.address, c.points, "
+            + "c.per_kwh, c.per_minute, c.flat_fee, c.currency, c.free, c.latitude, c.longitude";
+
+    private static ChargerDatabase instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean pruned;
+
+    /**
+     * Callback interface receiving the result of a query.
+     */
+    public interface Callback {
+        /**
+         * Triggered on the main thread with the result of a query.
+         *
+         * @param chargers The chargers found, or null if the store cannot answer the query.
+         */
+        void onResult(List<EVCharger> chargers);
+    }
+
+    /**
+     * Callback interface receiving the saved regions.
+     */
+    public interface RegionsCallback {
+        /**
+         * Triggered on the main thread with the saved regions.
+         *
+         * @param regions The saved regions, oldest first.
+         */
+        void onResult(List<SavedRegion> regions);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context The context used to open the database.
+     * @param name    The database file name, or null for an in-memory database.
+     */
+    ChargerDatabase(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+
+        // Readers are not blocked by the writer, and a commit needs no rollback journal
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Returns the shared database, creating it on first use. The file is only opened by the first query.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared {@code ChargerDatabase}.
+     */
+    public static synchronized ChargerDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChargerDatabase(context.getApplicationContext(), DATABASE_NAME);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE chargers (id INTEGER PRIMARY KEY, title TEXT NOT NULL, description TEXT NOT NULL, "
+                + "address TEXT NOT NULL, points INTEGER NOT NULL, per_kwh REAL, per_minute REAL, flat_fee REAL, "
+                + "currency TEXT, free INTEGER NOT NULL, latitude REAL NOT NULL, longitude REAL NOT NULL, "
+                + "fetched_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE covered_areas (id INTEGER PRIMARY KEY, latitude REAL NOT NULL, "
+                + "longitude REAL NOT NULL, radius_meters REAL NOT NULL, fetched_at INTEGER NOT NULL)");
+        createBoundsTable(db, "charger_bounds");
+        createBoundsTable(db, "covered_bounds");
+        createRegionsTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createRegionsTable(db);
+        }
+    }
+
+    private static void createRegionsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE saved_regions (id INTEGER PRIMARY KEY, name TEXT NOT NULL, latitude REAL NOT NULL, "
+                + "longitude REAL NOT NULL, radius_meters REAL NOT NULL, synced_at INTEGER NOT NULL DEFAULT 0, "
+                + "full_synced_at INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    /**
+     * Creates a table of bounding boxes keyed by the id of the row they belong to, as an R*Tree.
+     * SQLite builds without the R*Tree module get an ordinary indexed table with the same columns,
+     * which the same queries work on, only more slowly.
+     */
+    private static void createBoundsTable(SQLiteDatabase db, String name) {
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + name + " USING rtree(id, min_lat, max_lat, min_lon, max_lon)");
+        } catch (SQLiteException e) {
+            Log.e("EV_DATABASE", "R*Tree not available, using an indexed table: " + e.getMessage());
+            db.execSQL("CREATE TABLE " + name + " (id INTEGER PRIMARY KEY, min_lat REAL NOT NULL, "
+                    + "max_lat REAL NOT NULL, min_lon REAL NOT NULL, max_lon REAL NOT NULL)");
+            db.execSQL("CREATE INDEX " + name + "_lat ON " + name + " (min_lat, max_lat)");
+        }
+    }
+
+    /**
+     * Stores the chargers of an API response on the background thread, replacing any with the same id,
+     * in a single transaction. If the response covered a circle completely, the circle is recorded as
+     * downloaded, and stored chargers inside it that the response no longer contains are removed.
+     *
+     * @param chargers            The chargers downloaded.
+     * @param coveredCentre       The centre of the area the response covered.
+     * @param coveredRadiusMeters The radius of the area, or 0 if the response may be incomplete.
+     */
+    public void putAll(List<EVCharger> chargers, LatLng coveredCentre, double coveredRadiusMeters) {
+        long fetchedAt = System.currentTimeMillis();
+        List<EVCharger> copy = new ArrayList<>(chargers);
+        executor.execute(() -> {
+            Metrics.Timer timer = Metrics.start("database.write");
+            try {
+                write(getWritableDatabase(), copy, coveredCentre, coveredRadiusMeters, fetchedAt, true);
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error storing chargers: " + e.getMessage());
+            } finally {
+                timer.stop();
+            }
+        });
+    }
+
+    /**
+     * Stores a delta download of an area on the background thread: chargers added or changed since it
+     * was last downloaded, replacing any with the same id, in a single transaction. Unlike
+     * {@link #putAll}, stored chargers missing from the delta are kept, and the area counts as freshly
+     * downloaded again.
+     *
+     * @param chargers            The chargers added or changed.
+     * @param coveredCentre       The centre of the area.
+     * @param coveredRadiusMeters The radius of the area, or 0 if the delta may be incomplete.
+     */
+    public void putDelta(List<EVCharger> chargers, LatLng coveredCentre, double coveredRadiusMeters) {
+        long fetchedAt = System.currentTimeMillis();
+        List<EVCharger> copy = new ArrayList<>(chargers);
+        executor.execute(() -> {
+            Metrics.Timer timer = Metrics.start("database.write");
+            try {
+                write(getWritableDatabase(), copy, coveredCentre, coveredRadiusMeters, fetchedAt, false);
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error storing chargers: " + e.getMessage());
+            } finally {
+                timer.stop();
+            }
+        });
+    }
+
+    /**
+     * Finds the k chargers closest to a location on the background thread, but only if they lie in an
+     * area downloaded within {@link #MAX_AGE_MILLIS}, so the answer is complete and recent.
+     *
+     * @param latLng   The query location.
+     * @param k        The number of chargers wanted.
+     * @param callback The callback receiving the k nearest chargers, nearest first, or null if the
+     *                 network should be used.
+     */
+    public void nearestIfCovered(LatLng latLng, int k, Callback callback) {
+        long now = System.currentTimeMillis();
+        executor.execute(() -> {
+            Metrics.Timer timer = Metrics.start("database.query");
+            List<EVCharger> chargers = null;
+            try {
+                chargers = readNearestIfCovered(getReadableDatabase(), latLng, k, now);
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error querying chargers: " + e.getMessage());
+            } finally {
+                timer.stop();
+            }
+
+            List<EVCharger> result = chargers;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Deletes every stored charger and downloaded area on the background thread, e.g. before tests.
+     */
+    public void clear() {
+        executor.execute(() -> {
+            try {
+                SQLiteDatabase db = getWritableDatabase();
+                db.beginTransaction();
+                try {
+                    prune(db, Long.MAX_VALUE);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error clearing chargers: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Saves a region to keep synced on the background thread.
+     *
+     * @param name         The name shown for the region.
+     * @param centre       The centre of the region.
+     * @param radiusMeters The radius of the region in metres.
+     */
+    public void saveRegion(String name, LatLng centre, double radiusMeters) {
+        executor.execute(() -> {
+            try (SQLiteStatement insert = getWritableDatabase().compileStatement(
+                    "INSERT INTO saved_regions (name, latitude, longitude, radius_meters) VALUES (?, ?, ?, ?)")) {
+                insert.bindString(1, name);
+                insert.bindDouble(2, centre.latitude);
+                insert.bindDouble(3, centre.longitude);
+                insert.bindDouble(4, radiusMeters);
+                insert.executeInsert();
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error saving region: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Removes a saved region on the background thread. Its chargers stay until they are pruned.
+     *
+     * @param id The id of the region.
+     */
+    public void removeRegion(long id) {
+        executor.execute(() -> {
+            try {
+                getWritableDatabase().delete("saved_regions", "id = ?", new String[]{String.valueOf(id)});
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error removing region: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads the saved regions on the background thread.
+     *
+     * @param callback The callback receiving the regions on the main thread.
+     */
+    public void getRegions(RegionsCallback callback) {
+        executor.execute(() -> {
+            List<SavedRegion> regions = readRegionsOrEmpty();
+            mainHandler.post(() -> callback.onResult(regions));
+        });
+    }
+
+    /**
+     * Reads the saved regions and waits for the result, for callers already on a background thread.
+     * Writes queued before the call are visible. Must not be called on the main thread.
+     *
+     * @return The saved regions, oldest first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public List<SavedRegion> loadRegions() throws InterruptedException {
+        try {
+            return executor.submit(this::readRegionsOrEmpty).get();
+        } catch (ExecutionException e) {
+            Log.e("EV_DATABASE", "Error reading regions: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Records the sync of a region on the background thread. Queued after the chargers of the sync
+     * have been queued for writing, so a region is only marked synced once its chargers are stored.
+     *
+     * @param id           The id of the region.
+     * @param syncedAt     When the region was synced.
+     * @param fullSyncedAt When the region was last downloaded in full, or 0 to download it in full next time.
+     */
+    public void markRegionSynced(long id, long syncedAt, long fullSyncedAt) {
+        executor.execute(() -> {
+            try (SQLiteStatement update = getWritableDatabase().compileStatement(
+                    "UPDATE saved_regions SET synced_at = ?, full_synced_at = ? WHERE id = ?")) {
+                update.bindLong(1, syncedAt);
+                update.bindLong(2, fullSyncedAt);
+                update.bindLong(3, id);
+                update.executeUpdateDelete();
+            } catch (SQLiteException e) {
+                Log.e("EV_DATABASE", "Error marking region synced: " + e.getMessage());
+            }
+        });
+    }
+
+    private List<SavedRegion> readRegionsOrEmpty() {
+        ArrayList<SavedRegion> regions = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT id, name, latitude, longitude, radius_meters, "
+                + "synced_at, full_synced_at FROM saved_regions ORDER BY id", null)) {
+            while (cursor.moveToNext()) {
+                regions.add(new SavedRegion(cursor.getLong(0), cursor.getString(1),
+                        new LatLng(cursor.getDouble(2), cursor.getDouble(3)), cursor.getDouble(4),
+                        cursor.getLong(5), cursor.getLong(6)));
+            }
+        } catch (SQLiteException e) {
+            Log.e("EV_DATABASE", "Error reading regions: " + e.getMessage());
+        }
+        return regions;
+    }
+
+    private void write(SQLiteDatabase db, List<EVCharger> chargers, LatLng coveredCentre, double coveredRadiusMeters,
+                       long fetchedAt, boolean fullDownload) {
+        db.beginTransaction();
+        try {
+            if (!pruned) {
+                prune(db, fetchedAt - RETENTION_MILLIS);
+                pruned = true;
+            }
+
+            if (coveredRadiusMeters > 0) {
+                if (fullDownload) {
+                    removeMissing(db, chargers, coveredCentre, coveredRadiusMeters);
+                }
+                insertCoveredArea(db, coveredCentre, coveredRadiusMeters, fetchedAt);
+            }
+
+            try (SQLiteStatement insertCharger = db.compileStatement(
+                    "INSERT OR REPLACE INTO chargers VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 SQLiteStatement insertBounds = db.compileStatement(
+                         "INSERT OR REPLACE INTO charger_bounds VALUES (?, ?, ?, ?, ?)")) {
+                insertChargers(insertCharger, insertBounds, chargers, fetchedAt);
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void insertChargers(SQLiteStatement insertCharger, SQLiteStatement insertBounds,
+                                       List<EVCharger> chargers, long fetchedAt) {
+        for (EVCharger charger : chargers) {
+            // Without an id a charger cannot be matched when it is downloaded again
+            if (charger.getId() == EVCharger.UNKNOWN_ID) {
+                continue;
+            }
+
+            Tariff tariff = charger.getTariff();
+            LatLng location = charger.getLocation();
+            insertCharger.clearBindings();
+            insertCharger.bindLong(1, charger.getId());
+            insertCharger.bindString(2, charger.getTitle());
+            insertCharger.bindString(3, charger.getDescription());
+            insertCharger.bindString(4, charger.getAddress());
+            insertCharger.bindLong(5, charger.getPoints());
+            bindPrice(insertCharger, 6, tariff.getPerKwh());
+            bindPrice(insertCharger, 7, tariff.getPerMinute());
+            bindPrice(insertCharger, 8, tariff.getFlatFee());
+            if (tariff.getCurrency() != null) {
+                insertCharger.bindString(9, tariff.getCurrency());
+            }
+            insertCharger.bindLong(10, tariff.isFree() ? 1 : 0);
+            insertCharger.bindDouble(11, location.latitude);
+            insertCharger.bindDouble(12, location.longitude);
+            insertCharger.bindLong(13, fetchedAt);
+            insertCharger.executeInsert();
+
+            insertBounds.bindLong(1, charger.getId());
+            insertBounds.bindDouble(2, location.latitude);
+            insertBounds.bindDouble(3, location.latitude);
+            insertBounds.bindDouble(4, location.longitude);
+            insertBounds.bindDouble(5, location.longitude);
+            insertBounds.executeInsert();
+        }
+    }
+
+    /**
+     * Removes the stored chargers in a completely downloaded circle that the download did not contain,
+     * as they have been removed from Open Charge Map.
+     */
+    private static void removeMissing(SQLiteDatabase db, List<EVCharger> chargers, LatLng centre, double radiusMeters) {
+        HashSet<Integer> ids = new HashSet<>();
+        for (EVCharger charger : chargers) {
+            ids.add(charger.getId());
+        }
+
+        for (EVCharger stored : readWithin(db, centre, radiusMeters)) {
+            if (!ids.contains(stored.getId())) {
+                String[] id = {String.valueOf(stored.getId())};
+                db.delete("chargers", "id = ?", id);
+                db.delete("charger_bounds", "id = ?", id);
+            }
+        }
+    }
+
+    private static void insertCoveredArea(SQLiteDatabase db, LatLng centre, double radiusMeters, long fetchedAt) {
+        long id;
+        try (SQLiteStatement insertArea = db.compileStatement(
+                "INSERT INTO covered_areas (latitude, longitude, radius_meters, fetched_at) VALUES (?, ?, ?, ?)")) {
+            insertArea.bindDouble(1, centre.latitude);
+            insertArea.bindDouble(2, centre.longitude);
+            insertArea.bindDouble(3, radiusMeters);
+            insertArea.bindLong(4, fetchedAt);
+            id = insertArea.executeInsert();
+        }
+
+        double[] box = boundsOf(centre, radiusMeters);
+        try (SQLiteStatement insertBounds = db.compileStatement("INSERT INTO covered_bounds VALUES (?, ?, ?, ?, ?)")) {
+            insertBounds.bindLong(1, id);
+            insertBounds.bindDouble(2, box[0]);
+            insertBounds.bindDouble(3, box[2]);
+            insertBounds.bindDouble(4, box[1]);
+            insertBounds.bindDouble(5, box[3]);
+            insertBounds.executeInsert();
+        }
+    }
+
+    /**
+     * Deletes chargers and covered areas that have not been downloaded since the cutoff.
+     */
+    private static void prune(SQLiteDatabase db, long cutoff) {
+        String[] args = {String.valueOf(cutoff)};
+        db.delete("chargers", "fetched_at < ?", args);
+        db.delete("charger_bounds", "id NOT IN (SELECT id FROM chargers)", null);
+        db.delete("covered_areas", "fetched_at < ?", args);
+        db.delete("covered_bounds", "id NOT IN (SELECT id FROM covered_areas)", null);
+    }
+
+    private static List<EVCharger> readNearestIfCovered(SQLiteDatabase db, LatLng latLng, int k, long now) {
+        // Find the largest circle around the location that lies inside a recently downloaded area;
+        // every charger in it is known.
+        double knownRadius = 0;
+        String point = String.valueOf(latLng.latitude);
+        String[] args = {point, point, String.valueOf(latLng.longitude), String.valueOf(latLng.longitude),
+                String.valueOf(now - MAX_AGE_MILLIS)};
+        try (Cursor cursor = db.rawQuery("SELECT a.latitude, a.longitude, a.radius_meters "
+                + "FROM covered_bounds b JOIN covered_areas a ON a.id = b.id "
+                + "WHERE b.min_lat <= ? AND b.max_lat >= ? AND b.min_lon <= ? AND b.max_lon >= ? "
+                + "AND a.fetched_at >= ?", args)) {
+            while (cursor.moveToNext()) {
+                double distance = GeoMath.distanceMeters(latLng.latitude, latLng.longitude,
+                        cursor.getDouble(0), cursor.getDouble(1));
+                knownRadius = Math.max(knownRadius, cursor.getDouble(2) - distance);
+            }
+        }
+        if (knownRadius <= 0) {
+            return null;
+        }
+
+        // If the circle holds at least k chargers, the k nearest are among them.
+        List<EVCharger> chargers = readWithin(db, latLng, knownRadius);
+        if (chargers.size() < k) {
+            return null;
+        }
+
+        List<EVCharger> sorted = ChargerPipeline.dedupeAndSort(latLng, chargers);
+        return new ArrayList<>(sorted.subList(0, k));
+    }
+
+    /**
+     * Reads the stored chargers within a circle, in no particular order.
+     */
+    private static List<EVCharger> readWithin(SQLiteDatabase db, LatLng centre, double radiusMeters) {
+        double[] box = boundsOf(centre, radiusMeters);
+        String[] args = {String.valueOf(box[0]), String.valueOf(box[2]), String.valueOf(box[1]), String.valueOf(box[3])};
+
+        ArrayList<EVCharger> chargers = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT " + CHARGER_COLUMNS
+                + " FROM charger_bounds b JOIN chargers c ON c.id = b.id "
+                + "WHERE b.max_lat >= ? AND b.min_lat <= ? AND b.max_lon >= ? AND b.min_lon <= ?", args)) {
+            while (cursor.moveToNext()) {
+                EVCharger charger = readCharger(cursor);
+                if (GeoMath.distanceMeters(centre, charger.getLocation()) <= radiusMeters) {
+                    chargers.add(charger);
+                }
+            }
+        }
+        return chargers;
+    }
+
+    private static EVCharger readCharger(Cursor cursor) {
+        Tariff tariff = new Tariff(readPrice(cursor, 5), readPrice(cursor, 6), readPrice(cursor, 7),
+                cursor.isNull(8) ? null : cursor.getString(8), cursor.getInt(9) != 0);
+        LatLng location = new LatLng(cursor.getDouble(10), cursor.getDouble(11));
+        return new EVCharger(cursor.getInt(0), cursor.getString(1), cursor.getString(2), cursor.getString(3),
+                cursor.getInt(4), tariff, location);
+    }
+
+    /**
+     * Binds a price, storing a missing (NaN) price as NULL, which is what SQLite would make of it anyway.
+     */
+    private static void bindPrice(SQLiteStatement statement, int index, double price) {
+        if (Double.isNaN(price)) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, price);
+        }
+    }
+
+    private static double readPrice(Cursor cursor, int column) {
+        return cursor.isNull(column) ? Double.NaN : cursor.getDouble(column);
+    }
+
+    /**
+     * Returns the bounding box of a circle as {south, west, north, east}.
+     */
+    private static double[] boundsOf(LatLng centre, double radiusMeters) {
+        double latitudeDegrees = radiusMeters / GeoMath.METERS_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(centre.latitude));
+        double longitudeDegrees = cos > 1e-6 ? Math.min(180, latitudeDegrees / cos) : 180;
+        return new double[]{
+                centre.latitude - latitudeDegrees, centre.longitude - longitudeDegrees,
+                centre.latitude + latitudeDegrees, centre.longitude + longitudeDegrees
+        };
+    }
+}
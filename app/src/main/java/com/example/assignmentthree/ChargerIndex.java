@@ -0,0 +1,441 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An in-memory spatial index of downloaded EV chargers.
+ * Chargers are bucketed into a fixed latitude/longitude grid, which keeps inserts cheap and lets
+ * k-nearest and bounding-box queries visit only the few cells around the query point.
+ * The index also remembers which areas have been fully downloaded, so a search inside an
+ * already covered area can be answered without a network round trip.
+ *
+ * <p>The shared index holds at most {@value #DEFAULT_MAX_CHARGERS} chargers. Once it is full, the least
+ * recently used grid cells are evicted, together with every covered area that overlaps them, so a
+ * covered area never vouches for chargers that are no longer in the index.</p>
+ */
+public class ChargerIndex {
+    /** Default size of a grid cell in degrees (roughly 5 km of latitude). */
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.05;
+
+    /** Default maximum number of chargers held by the shared index. */
+    public static final int DEFAULT_MAX_CHARGERS = 20_000;
+
+    private static final int MAX_COVERED_AREAS = 512;
+
+    private static ChargerIndex instance;
+
+    private final double cellSize;
+    private final int maxChargers;
+
+    // In access order, so the least recently inserted into or queried cell comes first
+    private final LinkedHashMap<Long, ArrayList<EVCharger>> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<Integer, EVCharger> chargersById = new HashMap<>();
+    private final ArrayList<CoveredArea> coveredAreas = new ArrayList<>();
+    private int size;
+    private int minCellX = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+
+    /**
+     * A circle within which every charger is known to be in the index.
+     */
+    private static class CoveredArea {
+        final LatLng centre;
+        final double radiusMeters;
+
+        CoveredArea(LatLng centre, double radiusMeters) {
+            this.centre = centre;
+            this.radiusMeters = radiusMeters;
+        }
+    }
+
+    /**
+     * A charger paired with its distance from the query point.
+     */
+    private static class Candidate {
+        final EVCharger charger;
+        final double distance;
+
+        Candidate(EVCharger charger, double distance) {
+            this.charger = charger;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Constructor for an index without a size limit.
+     *
+     * @param cellSize The size of a grid cell in degrees.
+     */
+    public ChargerIndex(double cellSize) {
+        this(cellSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cellSize    The size of a grid cell in degrees.
+     * @param maxChargers The most chargers held before the least recently used cells are evicted.
+     */
+    public ChargerIndex(double cellSize, int maxChargers) {
+        this.cellSize = cellSize;
+        this.maxChargers = maxChargers;
+    }
+
+    /**
+     * Returns the shared index instance, creating it on first use.
+     *
+     * @return The shared {@code ChargerIndex}.
+     */
+    public static synchronized ChargerIndex getInstance() {
+        if (instance == null) {
+            instance = new ChargerIndex(DEFAULT_CELL_SIZE_DEGREES, DEFAULT_MAX_CHARGERS);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a charger to the index, replacing any charger previously stored with the same id.
+     * If the index is then over its limit, the least recently used cells are evicted.
+     *
+     * @param charger The charger to add.
+     */
+    public synchronized void insert(EVCharger charger) {
+        if (charger.getId() != EVCharger.UNKNOWN_ID) {
+            EVCharger previous = chargersById.put(charger.getId(), charger);
+            if (previous != null) {
+                remove(previous);
+            }
+        }
+
+        LatLng location = charger.getLocation();
+        int x = cellX(location.longitude);
+        int y = cellY(location.latitude);
+
+        ArrayList<EVCharger> bucket = buckets.get(key(x, y));
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets.put(key(x, y), bucket);
+        }
+        bucket.add(charger);
+        size++;
+
+        minCellX = Math.min(minCellX, x);
+        maxCellX = Math.max(maxCellX, x);
+        minCellY = Math.min(minCellY, y);
+        maxCellY = Math.max(maxCellY, y);
+
+        if (size > maxChargers) {
+            evict();
+        }
+    }
+
+    /**
+     * Adds several chargers to the index.
+     *
+     * @param chargers The chargers to add.
+     */
+    public synchronized void insertAll(Collection<EVCharger> chargers) {
+        for (EVCharger charger : chargers) {
+            insert(charger);
+        }
+    }
+
+    /**
+     * Gets the number of chargers in the index.
+     *
+     * @return The number of indexed chargers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes every charger and covered area from the index.
+     */
+    public synchronized void clear() {
+        buckets.clear();
+        chargersById.clear();
+        coveredAreas.clear();
+        size = 0;
+        minCellX = Integer.MAX_VALUE;
+        maxCellX = Integer.MIN_VALUE;
+        minCellY = Integer.MAX_VALUE;
+        maxCellY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Records that every charger within the given circle has been added to the index.
+     *
+     * @param centre       The centre of the downloaded area.
+     * @param radiusMeters The radius of the downloaded area in metres.
+     */
+    public synchronized void markCovered(LatLng centre, double radiusMeters) {
+        if (coveredAreas.size() >= MAX_COVERED_AREAS) {
+            coveredAreas.remove(0);
+        }
+        coveredAreas.add(new CoveredArea(centre, radiusMeters));
+    }
+
+    /**
+     * Finds the k chargers closest to a location.
+     *
+     * @param latLng The query location.
+     * @param k      The maximum number of chargers to return.
+     * @return Up to k chargers, ordered from nearest to farthest.
+     */
+    public synchronized List<EVCharger> nearest(LatLng latLng, int k) {
+        ArrayList<EVCharger> result = new ArrayList<>();
+        if (k <= 0 || size == 0) {
+            return result;
+        }
+
+        // Max-heap on distance, so the current k-th nearest candidate is always on top.
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k, (a, b) -> Double.compare(b.distance, a.distance));
+
+        int x = cellX(latLng.longitude);
+        int y = cellY(latLng.latitude);
+        int maxRing = Math.max(Math.max(x - minCellX, maxCellX - x), Math.max(y - minCellY, maxCellY - y));
+        int visited = 0;
+
+        for (int ring = 0; ring <= maxRing && visited < size; ring++) {
+            // Stop once no charger in this or any outer ring can beat the current k-th nearest.
+            if (best.size() == k && ringLowerBoundMeters(latLng.latitude, ring) > best.peek().distance) {
+                break;
+            }
+
+            for (int dx = -ring; dx <= ring; dx++) {
+                visited += visitCell(x + dx, y - ring, latLng, k, best);
+                if (ring > 0) {
+                    visited += visitCell(x + dx, y + ring, latLng, k, best);
+                }
+            }
+            for (int dy = -ring + 1; dy <= ring - 1; dy++) {
+                visited += visitCell(x - ring, y + dy, latLng, k, best);
+                visited += visitCell(x + ring, y + dy, latLng, k, best);
+            }
+        }
+
+        ArrayList<Candidate> sorted = new ArrayList<>(best);
+        Collections.sort(sorted, (a, b) -> Double.compare(a.distance, b.distance));
+        for (Candidate candidate : sorted) {
+            result.add(candidate.charger);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the k chargers closest to a location, but only if the index is known to hold every
+     * charger that could be among them.
+     *
+     * @param latLng The query location.
+     * @param k      The number of chargers wanted.
+     * @return The k nearest chargers, or null if the answer may be incomplete and the network should be used.
+     */
+    public synchronized List<EVCharger> nearestIfCovered(LatLng latLng, int k) {
+        List<EVCharger> nearest = nearest(latLng, k);
+        if (nearest.size() < k) {
+            return null;
+        }
+
+        // Every charger within this radius must be known for the answer to be complete.
+        double neededRadius = GeoMath.distanceMeters(latLng, nearest.get(nearest.size() - 1).getLocation());
+
+        for (CoveredArea area : coveredAreas) {
+            if (GeoMath.distanceMeters(latLng, area.centre) + neededRadius <= area.radiusMeters) {
+                return nearest;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds every charger within a circle, but only if the index is known to hold every charger in it.
+     *
+     * @param centre       The centre of the circle.
+     * @param radiusMeters The radius of the circle in metres.
+     * @return The chargers in the circle, in no particular order, or null if the circle is not covered
+     * by a downloaded area and the network should be used.
+     */
+    public synchronized List<EVCharger> withinRadiusIfCovered(LatLng centre, double radiusMeters) {
+        boolean covered = false;
+        for (CoveredArea area : coveredAreas) {
+            if (GeoMath.distanceMeters(centre, area.centre) + radiusMeters <= area.radiusMeters) {
+                covered = true;
+                break;
+            }
+        }
+        if (!covered) {
+            return null;
+        }
+
+        double latitudeDegrees = radiusMeters / GeoMath.METERS_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(centre.latitude));
+        double longitudeDegrees = cos > 1e-6 ? Math.min(180, latitudeDegrees / cos) : 180;
+
+        List<EVCharger> result = withinBounds(centre.latitude - latitudeDegrees, centre.longitude - longitudeDegrees,
+                centre.latitude + latitudeDegrees, centre.longitude + longitudeDegrees);
+        result.removeIf(charger -> GeoMath.distanceMeters(centre, charger.getLocation()) > radiusMeters);
+        return result;
+    }
+
+    /**
+     * Finds every charger inside a latitude/longitude bounding box.
+     *
+     * @param south The southern latitude of the box.
+     * @param west  The western longitude of the box.
+     * @param north The northern latitude of the box.
+     * @param east  The eastern longitude of the box.
+     * @return The chargers inside the box, in no particular order.
+     */
+    public synchronized List<EVCharger> withinBounds(double south, double west, double north, double east) {
+        ArrayList<EVCharger> result = new ArrayList<>();
+        if (size == 0) {
+            return result;
+        }
+
+        int fromX = Math.max(cellX(west), minCellX);
+        int toX = Math.min(cellX(east), maxCellX);
+        int fromY = Math.max(cellY(south), minCellY);
+        int toY = Math.min(cellY(north), maxCellY);
+
+        if ((long) (toX - fromX + 1) * (long) (toY - fromY + 1) > buckets.size()) {
+            // The box spans more cells than are occupied, so scanning the buckets is cheaper.
+            for (ArrayList<EVCharger> bucket : buckets.values()) {
+                addWithinBounds(bucket, south, west, north, east, result);
+            }
+            return result;
+        }
+
+        for (int x = fromX; x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                ArrayList<EVCharger> bucket = buckets.get(key(x, y));
+                if (bucket != null) {
+                    addWithinBounds(bucket, south, west, north, east, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up a charger at (or within a few metres of) the given location.
+     *
+     * @param latLng          The location of the charger.
+     * @param toleranceMeters How far away the indexed charger may be.
+     * @return The indexed charger, or null if there is none that close.
+     */
+    public synchronized EVCharger findAt(LatLng latLng, double toleranceMeters) {
+        List<EVCharger> nearest = nearest(latLng, 1);
+        if (nearest.isEmpty() || GeoMath.distanceMeters(latLng, nearest.get(0).getLocation()) > toleranceMeters) {
+            return null;
+        }
+        return nearest.get(0);
+    }
+
+    private int visitCell(int x, int y, LatLng latLng, int k, PriorityQueue<Candidate> best) {
+        ArrayList<EVCharger> bucket = buckets.get(key(x, y));
+        if (bucket == null) {
+            return 0;
+        }
+
+        for (EVCharger charger : bucket) {
+            LatLng location = charger.getLocation();
+            double distance = GeoMath.distanceMeters(latLng.latitude, latLng.longitude, location.latitude, location.longitude);
+
+            if (best.size() < k) {
+                best.add(new Candidate(charger, distance));
+            } else if (distance < best.peek().distance) {
+                best.poll();
+                best.add(new Candidate(charger, distance));
+            }
+        }
+        return bucket.size();
+    }
+
+    /**
+     * Returns a lower bound for the distance from a query point to any charger in the given ring of cells.
+     */
+    private double ringLowerBoundMeters(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+
+        // Longitude degrees shrink towards the poles, so use the widest latitude the ring can reach.
+        double maxLatitude = Math.min(90.0, Math.abs(latitude) + ring * cellSize);
+        return (ring - 1) * cellSize * GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(maxLatitude));
+    }
+
+    /**
+     * Evicts the least recently used cells until the index is within its limit, and forgets every
+     * covered area overlapping them. The cell just inserted into is the most recently used, so it is kept.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Long, ArrayList<EVCharger>>> iterator = buckets.entrySet().iterator();
+        while (size > maxChargers && buckets.size() > 1) {
+            Map.Entry<Long, ArrayList<EVCharger>> eldest = iterator.next();
+            for (EVCharger charger : eldest.getValue()) {
+                chargersById.remove(charger.getId(), charger);
+            }
+            size -= eldest.getValue().size();
+            iterator.remove();
+
+            long key = eldest.getKey();
+            double south = (int) (key >> 32) * cellSize;
+            double west = (int) key * cellSize;
+            coveredAreas.removeIf(area -> overlapsCell(area, south, west));
+        }
+    }
+
+    /**
+     * Whether a covered area reaches into the grid cell with the given south-west corner.
+     */
+    private boolean overlapsCell(CoveredArea area, double south, double west) {
+        // The point of the cell nearest the centre of the area
+        double latitude = Math.max(south, Math.min(south + cellSize, area.centre.latitude));
+        double longitude = Math.max(west, Math.min(west + cellSize, area.centre.longitude));
+        return GeoMath.distanceMeters(area.centre.latitude, area.centre.longitude, latitude, longitude) <= area.radiusMeters;
+    }
+
+    private void remove(EVCharger charger) {
+        LatLng location = charger.getLocation();
+        ArrayList<EVCharger> bucket = buckets.get(key(cellX(location.longitude), cellY(location.latitude)));
+        if (bucket != null && bucket.remove(charger)) {
+            size--;
+        }
+    }
+
+    private static void addWithinBounds(List<EVCharger> bucket, double south, double west, double north, double east,
+                                        List<EVCharger> result) {
+        for (EVCharger charger : bucket) {
+            LatLng location = charger.getLocation();
+            if (location.latitude >= south && location.latitude <= north
+                    && location.longitude >= west && location.longitude <= east) {
+                result.add(charger);
+            }
+        }
+    }
+
+    private int cellX(double longitude) {
+        return (int) Math.floor(longitude / cellSize);
+    }
+
+    private int cellY(double latitude) {
+        return (int) Math.floor(latitude / cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.assignmentthree;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the transform steps between a parsed Open Charge Map response and the UI on a background thread:
+ * duplicates are removed, the chargers are sorted by distance from the search origin, and an optional
+ * background step (such as indexing or caching) is run. If the pipeline has a {@link ChargerRanker},
+ * only the best ranked chargers are then kept. Only the finished, unmodifiable list is posted back to
+ * the main thread.
+ */
+public class ChargerPipeline {
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ChargerRanker ranker;
+    private final int limit;
+
+    /**
+     * A step run on the background thread with the finished list, before it is delivered.
+     */
+    public interface BackgroundStep {
+        /**
+         * Triggered on the pipeline's background thread.
+         *
+         * @param chargers The de-duplicated and sorted chargers.
+         */
+        void run(List<EVCharger> chargers);
+    }
+
+    /**
+     * Callback interface receiving the result of the pipeline.
+     */
+    public interface Callback {
+        /**
+         * Triggered on the main thread once the chargers have been processed.
+         *
+         * @param chargers The unmodifiable, de-duplicated list of chargers, nearest first,
+         *                 or best ranked first if the pipeline ranks its results.
+         */
+        void onResult(List<EVCharger> chargers);
+    }
+
+    /**
+     * Constructs a pipeline that delivers all chargers, nearest first.
+     */
+    public ChargerPipeline() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a pipeline that delivers only the best ranked chargers.
+     *
+     * @param ranker The ranker scoring the chargers, or null to deliver them nearest first.
+     * @param limit  The maximum number of chargers to deliver.
+     */
+    public ChargerPipeline(ChargerRanker ranker, int limit) {
+        this.ranker = ranker;
+        this.limit = limit;
+    }
+
+    /**
+     * Processes chargers on the background thread and delivers the result on the main thread.
+     * The background step sees all chargers; ranking is applied after it.
+     *
+     * @param origin   The location to sort and rank the chargers by distance from.
+     * @param chargers The parsed chargers. The list is not modified.
+     * @param step     An optional step to run on the background thread, or null.
+     * @param callback The callback receiving the final list on the main thread.
+     */
+    public void process(LatLng origin, List<EVCharger> chargers, BackgroundStep step, Callback callback) {
+        executor.execute(() -> {
+            List<EVCharger> result = dedupeAndSort(origin, chargers);
+
+            if (step != null) {
+                step.run(result);
+            }
+
+            List<EVCharger> delivered = ranker != null ? ranker.topK(origin, result, limit) : result;
+            mainHandler.post(() -> callback.onResult(delivered));
+        });
+    }
+
+    /**
+     * Removes duplicate chargers and sorts the rest by distance from the origin.
+     * Chargers are duplicates if they share an Open Charge Map id, or, when the id is unknown, a location.
+     *
+     * @param origin   The location to sort the chargers by distance from.
+     * @param chargers The chargers to process. The list is not modified.
+     * @return An unmodifiable list of unique chargers, nearest first.
+     */
+    public static List<EVCharger> dedupeAndSort(LatLng origin, List<EVCharger> chargers) {
+        HashSet<Object> seen = new HashSet<>();
+        ArrayList<EVCharger> unique = new ArrayList<>(chargers.size());
+
+        for (EVCharger charger : chargers) {
+            Object key = charger.getId() != EVCharger.UNKNOWN_ID ? (Object) charger.getId() : charger.getLocation();
+            if (seen.add(key)) {
+                unique.add(charger);
+            }
+        }
+
+        // Work out every distance once, then sort an index array rather than recomputing inside the comparator.
+        double[] distances = new double[unique.size()];
+        Integer[] order = new Integer[unique.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            distances[i] = GeoMath.distanceMeters(origin, unique.get(i).getLocation());
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+
+        ArrayList<EVCharger> sorted = new ArrayList<>(order.length);
+        for (Integer i : order) {
+            sorted.add(unique.get(i));
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.PowerManager;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Warms the data {@link DetailActivity} needs for the chargers the user is most likely to tap next:
+ * the nearest few chargers to the centre of the visible map area. Their details are put in the
+ * {@link ChargerIndex} and their Street View images are loaded into the {@link StreetViewImageLoader}
+ * caches at low priority, so the detail screen opens without waiting on the network.
+ *
+ * <p>Prefetching is skipped on metered networks, with Data Saver on, and in battery saver mode.
+ * Prefetches for an earlier viewport are cancelled when a new one is prefetched.</p>
+ */
+public class ChargerPrefetcher {
+    /** The number of nearest visible chargers prefetched by default. */
+    public static final int DEFAULT_PREFETCH_COUNT = 5;
+
+    private final Context context;
+    private final ChargerIndex chargerIndex = ChargerIndex.getInstance();
+    private final StreetViewImageLoader imageLoader;
+
+    private int prefetchCount = DEFAULT_PREFETCH_COUNT;
+
+    /**
+     * Constructor.
+     *
+     * @param context The context used to check the network and power state.
+     */
+    public ChargerPrefetcher(Context context) {
+        this.context = context.getApplicationContext();
+        this.imageLoader = StreetViewImageLoader.getInstance(context);
+    }
+
+    /**
+     * Sets how many of the nearest visible chargers are prefetched.
+     *
+     * @param prefetchCount The number of chargers, 0 to turn prefetching off.
+     */
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = Math.max(0, prefetchCount);
+    }
+
+    /**
+     * Prefetches the details and Street View images of the chargers nearest the centre of the visible area.
+     * Must be called on the main thread, e.g. after the EV site markers have been placed.
+     *
+     * @param visible  The visible area of the map.
+     * @param chargers The chargers with a marker on the map.
+     */
+    public void prefetch(LatLngBounds visible, List<EVCharger> chargers) {
+        // The user has moved on, so prefetches for the previous area are no longer worth the bandwidth.
+        cancel();
+
+        if (prefetchCount == 0 || !isPrefetchAllowed()) {
+            return;
+        }
+
+        ArrayList<EVCharger> inside = new ArrayList<>();
+        for (EVCharger charger : chargers) {
+            if (visible.contains(charger.getLocation())) {
+                inside.add(charger);
+            }
+        }
+        List<EVCharger> nearest = ChargerPipeline.dedupeAndSort(visible.getCenter(), inside);
+        nearest = nearest.subList(0, Math.min(prefetchCount, nearest.size()));
+
+        // Details: DetailActivity looks a charger up in the index before asking the network.
+        chargerIndex.insertAll(nearest);
+
+        // Street View images: loaded behind any image being shown, and skipped if already cached.
+        for (EVCharger charger : nearest) {
+            LatLng location = charger.getLocation();
+            imageLoader.prefetch(location.latitude, location.longitude);
+        }
+    }
+
+    /**
+     * Cancels any prefetches that have not started yet.
+     */
+    public void cancel() {
+        imageLoader.cancelPrefetches();
+    }
+
+    /**
+     * Whether prefetching is allowed, i.e. there is an unmetered connection without Data Saver
+     * and the device is not in battery saver mode.
+     *
+     * @return True if prefetching is allowed.
+     */
+    public boolean isPrefetchAllowed() {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null && powerManager.isPowerSaveMode()) {
+            return false;
+        }
+
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null || connectivityManager.getActiveNetwork() == null) {
+            return false;
+        }
+        return !connectivityManager.isActiveNetworkMetered()
+                && connectivityManager.getRestrictBackgroundStatus() != ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ranks chargers by a weighted score of their distance from a location, their number of charging points
+ * and their price per kWh, and selects the best K. Each factor is scaled to 0..1 over the candidates,
+ * so the weights say how much each factor matters relative to the others, whatever the units.
+ * The best K are kept in a bounded heap while scanning, so ranking n candidates takes O(n log K)
+ * rather than sorting all of them.
+ */
+public class ChargerRanker {
+    /** Ranks mostly by distance, breaking near-ties in favour of more points and a lower price. */
+    public static final Weights DEFAULT_WEIGHTS = new Weights(1.0, 0.25, 0.25);
+
+    private volatile Weights weights = DEFAULT_WEIGHTS;
+
+    /**
+     * The relative importance of each ranking factor. All weights are zero or more.
+     */
+    public static final class Weights {
+        private final double distance;
+        private final double points;
+        private final double cost;
+
+        /**
+         * Constructor.
+         *
+         * @param distance The weight of being near the location.
+         * @param points   The weight of having more charging points.
+         * @param cost     The weight of being cheaper per kWh.
+         * @throws IllegalArgumentException if a weight is negative or not a number.
+         */
+        public Weights(double distance, double points, double cost) {
+            if (!(distance >= 0) || !(points >= 0) || !(cost >= 0)) {
+                throw new IllegalArgumentException("Ranking weights must be zero or more");
+            }
+            this.distance = distance;
+            this.points = points;
+            this.cost = cost;
+        }
+
+        /** @return The weight of being near the location. */
+        public double getDistance() { return distance; }
+
+        /** @return The weight of having more charging points. */
+        public double getPoints() { return points; }
+
+        /** @return The weight of being cheaper per kWh. */
+        public double getCost() { return cost; }
+    }
+
+    /**
+     * Gets the weights used for ranking.
+     *
+     * @return The current weights.
+     */
+    public Weights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Sets the weights used for ranking. Can be called from any thread; rankings already running keep the old weights.
+     *
+     * @param weights The new weights.
+     */
+    public void setWeights(Weights weights) {
+        if (weights == null) {
+            throw new IllegalArgumentException("weights is null");
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Selects the best ranked chargers.
+     *
+     * @param origin   The location to measure distances from.
+     * @param chargers The candidate chargers. The list is not modified.
+     * @param k        The maximum number of chargers to return.
+     * @return An unmodifiable list of up to {@code k} chargers, best first.
+     */
+    public List<EVCharger> topK(LatLng origin, List<EVCharger> chargers, int k) {
+        int count = chargers.size();
+        if (k <= 0 || count == 0) {
+            return Collections.emptyList();
+        }
+
+        // First pass: work out the raw factors once, and their ranges for scaling.
+        double[] distances = new double[count];
+        double maxDistance = 0;
+        int maxPoints = 0;
+        double maxCost = 0;
+        double costSum = 0;
+        int costCount = 0;
+        for (int i = 0; i < count; i++) {
+            EVCharger charger = chargers.get(i);
+            distances[i] = GeoMath.distanceMeters(origin, charger.getLocation());
+            maxDistance = Math.max(maxDistance, distances[i]);
+            maxPoints = Math.max(maxPoints, charger.getPoints());
+            double cost = charger.getTariff().getPerKwh();
+            if (!Double.isNaN(cost)) {
+                maxCost = Math.max(maxCost, cost);
+                costSum += cost;
+                costCount++;
+            }
+        }
+        // A charger with an unknown price is ranked as if it charged the average price.
+        double unknownCost = costCount > 0 ? costSum / costCount : 0;
+
+        // Second pass: keep the k lowest scores in a max-heap, so the worst of the best is always at the top.
+        Weights weights = this.weights;
+        int size = Math.min(k, count);
+        int[] heap = new int[size];
+        double[] heapScores = new double[size];
+        int heapCount = 0;
+        for (int i = 0; i < count; i++) {
+            EVCharger charger = chargers.get(i);
+            double cost = charger.getTariff().getPerKwh();
+            double score = weights.distance * scaled(distances[i], maxDistance)
+                    - weights.points * scaled(charger.getPoints(), maxPoints)
+                    + weights.cost * scaled(Double.isNaN(cost) ? unknownCost : cost, maxCost);
+
+            if (heapCount < size) {
+                siftUp(heap, heapScores, heapCount++, i, score);
+            } else if (score < heapScores[0]) {
+                siftDown(heap, heapScores, heapCount, i, score);
+            }
+        }
+
+        // Empty the heap from the worst remaining charger, filling the result from the back.
+        EVCharger[] ranked = new EVCharger[heapCount];
+        while (heapCount > 0) {
+            ranked[heapCount - 1] = chargers.get(heap[0]);
+            heapCount--;
+            siftDown(heap, heapScores, heapCount, heap[heapCount], heapScores[heapCount]);
+        }
+
+        ArrayList<EVCharger> result = new ArrayList<>(ranked.length);
+        Collections.addAll(result, ranked);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static double scaled(double value, double max) {
+        return max > 0 ? value / max : 0;
+    }
+
+    /**
+     * Inserts an entry at the end of the heap and moves it up to its place.
+     */
+    private static void siftUp(int[] heap, double[] scores, int position, int index, double score) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (scores[parent] >= score) {
+                break;
+            }
+            heap[position] = heap[parent];
+            scores[position] = scores[parent];
+            position = parent;
+        }
+        heap[position] = index;
+        scores[position] = score;
+    }
+
+    /**
+     * Replaces the top of a heap of the given size with an entry and moves it down to its place.
+     */
+    private static void siftDown(int[] heap, double[] scores, int count, int index, double score) {
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= count) {
+                break;
+            }
+            if (child + 1 < count && scores[child + 1] > scores[child]) {
+                child++;
+            }
+            if (scores[child] <= score) {
+                break;
+            }
+            heap[position] = heap[child];
+            scores[position] = scores[child];
+            position = child;
+        }
+        if (count > 0) {
+            heap[position] = index;
+            scores[position] = score;
+        }
+    }
+}
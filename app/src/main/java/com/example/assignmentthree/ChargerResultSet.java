@@ -0,0 +1,516 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of chargers stored column by column in parallel primitive arrays, rather than as
+ * one {@link EVCharger} with a {@link LatLng}, a {@link Tariff} and several strings per charger.
+ * Strings are kept once in a shared pool, so the many chargers with the same title, description or
+ * currency share a single copy. Rows can be read through a reusable {@link Row} view while iterating,
+ * and are only turned into {@link EVCharger} objects when one is actually needed, e.g. for a marker.
+ */
+public final class ChargerResultSet implements Iterable<ChargerResultSet.Row> {
+    /** A result set without any chargers. */
+    public static final ChargerResultSet EMPTY = new Builder().build();
+
+    private static final int NO_STRING = -1;
+    private static final byte FLAG_FREE = 1;
+
+    private final int size;
+    private final int[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] points;
+    private final double[] perKwh;
+    private final double[] perMinute;
+    private final double[] flatFees;
+    private final byte[] flags;
+    private final int[] titles;
+    private final int[] descriptions;
+    private final int[] addresses;
+    private final int[] currencies;
+    private final String[] strings;
+
+    private ChargerResultSet(Builder builder) {
+        size = builder.size;
+        ids = Arrays.copyOf(builder.ids, size);
+        latitudes = Arrays.copyOf(builder.latitudes, size);
+        longitudes = Arrays.copyOf(builder.longitudes, size);
+        points = Arrays.copyOf(builder.points, size);
+        perKwh = Arrays.copyOf(builder.perKwh, size);
+        perMinute = Arrays.copyOf(builder.perMinute, size);
+        flatFees = Arrays.copyOf(builder.flatFees, size);
+        flags = Arrays.copyOf(builder.flags, size);
+        titles = Arrays.copyOf(builder.titles, size);
+        descriptions = Arrays.copyOf(builder.descriptions, size);
+        addresses = Arrays.copyOf(builder.addresses, size);
+        currencies = Arrays.copyOf(builder.currencies, size);
+        strings = builder.strings.toArray(new String[0]);
+    }
+
+    /**
+     * Creates a result set holding the given chargers, in order.
+     * Chargers with the same Open Charge Map id replace earlier ones.
+     *
+     * @param chargers The chargers.
+     * @return The result set.
+     */
+    public static ChargerResultSet of(List<EVCharger> chargers) {
+        Builder builder = new Builder(chargers.size());
+        for (EVCharger charger : chargers) {
+            builder.add(charger);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of chargers.
+     *
+     * @return The number of rows.
+     */
+    public int size() { return size; }
+
+    /**
+     * Whether there are no chargers.
+     *
+     * @return True if the result set is empty.
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Gets the Open Charge Map id of a charger.
+     *
+     * @param row The row, from 0 to {@link #size()} - 1.
+     * @return The id, or {@link EVCharger#UNKNOWN_ID}.
+     */
+    public int getId(int row) { return ids[row]; }
+
+    /**
+     * Gets the latitude of a charger.
+     *
+     * @param row The row, from 0 to {@link #size()} - 1.
+     * @return The latitude in degrees.
+     */
+    public double getLatitude(int row) { return latitudes[row]; }
+
+    /**
+     * Gets the longitude of a charger.
+     *
+     * @param row The row, from 0 to {@link #size()} - 1.
+     * @return The longitude in degrees.
+     */
+    public double getLongitude(int row) { return longitudes[row]; }
+
+    /**
+     * Gets the title of a charger.
+     *
+     * @param row The row, from 0 to {@link #size()} - 1.
+     * @return The title.
+     */
+    public String getTitle(int row) { return strings[titles[row]]; }
+
+    /**
+     * Creates the {@link EVCharger} for a row. Use this only for chargers that are actually shown.
+     *
+     * @param row The row, from 0 to {@link #size()} - 1.
+     * @return A new charger with the values of the row.
+     */
+    public EVCharger get(int row) {
+        return new EVCharger(ids[row], strings[titles[row]], strings[descriptions[row]], strings[addresses[row]],
+                points[row], tariff(row), new LatLng(latitudes[row], longitudes[row]));
+    }
+
+    /**
+     * Creates {@link EVCharger} objects for all rows.
+     *
+     * @return A new list of chargers, in row order.
+     */
+    public List<EVCharger> toList() {
+        ArrayList<EVCharger> chargers = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            chargers.add(get(row));
+        }
+        return chargers;
+    }
+
+    /**
+     * Iterates over the rows with a single {@link Row} view that moves along, so iterating allocates
+     * nothing per charger. The view must not be kept beyond the current iteration step.
+     *
+     * @return An iterator returning the same view positioned at each row in turn.
+     */
+    @Override
+    public Iterator<Row> iterator() {
+        Row view = new Row();
+        return new Iterator<Row>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Row next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                view.row = next++;
+                return view;
+            }
+        };
+    }
+
+    private Tariff tariff(int row) {
+        boolean free = (flags[row] & FLAG_FREE) != 0;
+        if (Double.isNaN(perKwh[row]) && Double.isNaN(perMinute[row]) && Double.isNaN(flatFees[row])) {
+            return free ? Tariff.FREE : Tariff.UNKNOWN;
+        }
+        return new Tariff(perKwh[row], perMinute[row], flatFees[row], string(currencies[row]), free);
+    }
+
+    private String string(int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    /**
+     * A flyweight view of one row, with the same getters as {@link EVCharger}.
+     */
+    public final class Row {
+        private int row;
+
+        private Row() {
+        }
+
+        /** @return The row index the view is at. */
+        public int getRow() { return row; }
+
+        /** @return The Open Charge Map id, or {@link EVCharger#UNKNOWN_ID}. */
+        public int getId() { return ids[row]; }
+
+        /** @return The title of the charger. */
+        public String getTitle() { return strings[titles[row]]; }
+
+        /** @return The description of the charger. */
+        public String getDescription() { return strings[descriptions[row]]; }
+
+        /** @return The address of the charger. */
+        public String getAddress() { return strings[addresses[row]]; }
+
+        /** @return The number of charging points. */
+        public int getPoints() { return points[row]; }
+
+        /** @return The price per kWh, or 0 if unknown. */
+        public double getCost() { return Double.isNaN(perKwh[row]) ? 0.0 : perKwh[row]; }
+
+        /** @return The latitude in degrees. */
+        public double getLatitude() { return latitudes[row]; }
+
+        /** @return The longitude in degrees. */
+        public double getLongitude() { return longitudes[row]; }
+
+        /** @return A new {@link EVCharger} with the values of the row. */
+        public EVCharger toCharger() { return get(row); }
+    }
+
+    /**
+     * Builds a {@link ChargerResultSet}. Chargers with an Open Charge Map id that was added before
+     * replace the earlier row, so the builder can also be used to accumulate chargers from several loads.
+     * Not thread safe.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] ids;
+        private double[] latitudes;
+        private double[] longitudes;
+        private int[] points;
+        private double[] perKwh;
+        private double[] perMinute;
+        private double[] flatFees;
+        private byte[] flags;
+        private int[] titles;
+        private int[] descriptions;
+        private int[] addresses;
+        private int[] currencies;
+
+        private final ArrayList<String> strings = new ArrayList<>();
+        private final HashMap<String, Integer> stringIndexes = new HashMap<>();
+
+        // Open-addressing map from id to row, so looking up an id does not box it
+        private int[] idSlots = new int[16];
+        private int[] rowSlots = new int[16];
+        private int idCount;
+
+        private ChargerResultSet built;
+
+        /**
+         * Constructor.
+         */
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The expected number of chargers.
+         */
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 1);
+            ids = new int[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            points = new int[capacity];
+            perKwh = new double[capacity];
+            perMinute = new double[capacity];
+            flatFees = new double[capacity];
+            flags = new byte[capacity];
+            titles = new int[capacity];
+            descriptions = new int[capacity];
+            addresses = new int[capacity];
+            currencies = new int[capacity];
+        }
+
+        /**
+         * Adds a charger, replacing an earlier one with the same Open Charge Map id.
+         *
+         * @param charger The charger to add.
+         * @return This builder.
+         */
+        public Builder add(EVCharger charger) {
+            Tariff tariff = charger.getTariff();
+            return add(charger.getId(), charger.getTitle(), charger.getDescription(), charger.getAddress(),
+                    charger.getPoints(), tariff.getPerKwh(), tariff.getPerMinute(), tariff.getFlatFee(),
+                    tariff.getCurrency(), tariff.isFree(), charger.getLocation().latitude, charger.getLocation().longitude);
+        }
+
+        /**
+         * Adds all chargers of a result set, replacing earlier ones with the same Open Charge Map id.
+         *
+         * @param chargers The chargers to add.
+         * @return This builder.
+         */
+        public Builder addAll(ChargerResultSet chargers) {
+            for (int row = 0; row < chargers.size; row++) {
+                add(chargers.ids[row], chargers.strings[chargers.titles[row]], chargers.strings[chargers.descriptions[row]],
+                        chargers.strings[chargers.addresses[row]], chargers.points[row], chargers.perKwh[row],
+                        chargers.perMinute[row], chargers.flatFees[row], chargers.string(chargers.currencies[row]),
+                        (chargers.flags[row] & FLAG_FREE) != 0, chargers.latitudes[row], chargers.longitudes[row]);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a charger from its individual values, without creating an {@link EVCharger}.
+         *
+         * @return This builder.
+         */
+        public Builder add(int id, String title, String description, String address, int points,
+                           double perKwh, double perMinute, double flatFee, String currency, boolean free,
+                           double latitude, double longitude) {
+            built = null;
+
+            int row = id != EVCharger.UNKNOWN_ID ? rowOf(id) : -1;
+            if (row < 0) {
+                row = size++;
+                ensureCapacity(size);
+                if (id != EVCharger.UNKNOWN_ID) {
+                    putRow(id, row);
+                }
+            }
+
+            this.ids[row] = id;
+            this.latitudes[row] = latitude;
+            this.longitudes[row] = longitude;
+            this.points[row] = points;
+            this.perKwh[row] = perKwh;
+            this.perMinute[row] = perMinute;
+            this.flatFees[row] = flatFee;
+            this.flags[row] = free ? FLAG_FREE : 0;
+            this.titles[row] = intern(title);
+            this.descriptions[row] = intern(description);
+            this.addresses[row] = intern(address);
+            this.currencies[row] = currency == null ? NO_STRING : intern(currency);
+            return this;
+        }
+
+        /**
+         * Gets the number of chargers added so far.
+         *
+         * @return The number of rows.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Removes all chargers.
+         *
+         * @return This builder.
+         */
+        public Builder clear() {
+            size = 0;
+            idCount = 0;
+            Arrays.fill(idSlots, 0);
+            strings.clear();
+            stringIndexes.clear();
+            built = null;
+            return this;
+        }
+
+        /**
+         * Removes the chargers outside a latitude/longitude box, e.g. those far from the visible part of
+         * the map, keeping the order of the others. Strings only used by removed chargers are dropped too.
+         *
+         * @param south The southern latitude of the box.
+         * @param west  The western longitude of the box; see {@link GeoMath#isWithin} for boxes crossing 180 degrees.
+         * @param north The northern latitude of the box.
+         * @param east  The eastern longitude of the box.
+         * @return The number of chargers removed.
+         */
+        public int retainWithin(double south, double west, double north, double east) {
+            int kept = 0;
+            for (int row = 0; row < size; row++) {
+                if (GeoMath.isWithin(latitudes[row], longitudes[row], south, west, north, east)) {
+                    if (kept != row) {
+                        moveRow(row, kept);
+                    }
+                    kept++;
+                }
+            }
+
+            int removed = size - kept;
+            if (removed == 0) {
+                return 0;
+            }
+            size = kept;
+            built = null;
+
+            // Rebuild the id table and the string pool, so neither holds on to entries of removed rows.
+            idSlots = new int[16];
+            rowSlots = new int[16];
+            idCount = 0;
+            ArrayList<String> oldStrings = new ArrayList<>(strings);
+            strings.clear();
+            stringIndexes.clear();
+            for (int row = 0; row < size; row++) {
+                if (ids[row] != EVCharger.UNKNOWN_ID) {
+                    putRow(ids[row], row);
+                }
+                titles[row] = intern(oldStrings.get(titles[row]));
+                descriptions[row] = intern(oldStrings.get(descriptions[row]));
+                addresses[row] = intern(oldStrings.get(addresses[row]));
+                if (currencies[row] != NO_STRING) {
+                    currencies[row] = intern(oldStrings.get(currencies[row]));
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Builds the result set. Building again without adding anything returns the same instance.
+         *
+         * @return The immutable result set.
+         */
+        public ChargerResultSet build() {
+            if (built == null) {
+                built = new ChargerResultSet(this);
+            }
+            return built;
+        }
+
+        private int intern(String value) {
+            Integer index = stringIndexes.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                stringIndexes.put(value, index);
+            }
+            return index;
+        }
+
+        private void moveRow(int from, int to) {
+            ids[to] = ids[from];
+            latitudes[to] = latitudes[from];
+            longitudes[to] = longitudes[from];
+            points[to] = points[from];
+            perKwh[to] = perKwh[from];
+            perMinute[to] = perMinute[from];
+            flatFees[to] = flatFees[from];
+            flags[to] = flags[from];
+            titles[to] = titles[from];
+            descriptions[to] = descriptions[from];
+            addresses[to] = addresses[from];
+            currencies[to] = currencies[from];
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(needed, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            points = Arrays.copyOf(points, capacity);
+            perKwh = Arrays.copyOf(perKwh, capacity);
+            perMinute = Arrays.copyOf(perMinute, capacity);
+            flatFees = Arrays.copyOf(flatFees, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            addresses = Arrays.copyOf(addresses, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+        }
+
+        /**
+         * Looks up the row of an id, or returns -1. Id 0 ({@link EVCharger#UNKNOWN_ID}) marks an empty slot.
+         */
+        private int rowOf(int id) {
+            int mask = idSlots.length - 1;
+            for (int slot = mix(id) & mask; idSlots[slot] != 0; slot = (slot + 1) & mask) {
+                if (idSlots[slot] == id) {
+                    return rowSlots[slot];
+                }
+            }
+            return -1;
+        }
+
+        private void putRow(int id, int row) {
+            // Keep the table at most half full so probe sequences stay short.
+            if ((idCount + 1) * 2 > idSlots.length) {
+                int[] oldIds = idSlots;
+                int[] oldRows = rowSlots;
+                idSlots = new int[oldIds.length * 2];
+                rowSlots = new int[oldIds.length * 2];
+                idCount = 0;
+                for (int i = 0; i < oldIds.length; i++) {
+                    if (oldIds[i] != 0) {
+                        putRow(oldIds[i], oldRows[i]);
+                    }
+                }
+            }
+
+            int mask = idSlots.length - 1;
+            int slot = mix(id) & mask;
+            while (idSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            idSlots[slot] = id;
+            rowSlots[slot] = row;
+            idCount++;
+        }
+
+        private static int mix(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the chargers and camera position the map was last showing, so the next cold start can draw
+ * them straight away instead of waiting for location and network. The chargers are written in the
+ * {@link OfflineChargerStore} format and the camera in shared preferences, both off the main thread.
+ */
+public class ChargerSnapshot {
+    /** The most chargers kept, nearest the camera first, so restoring stays quick. */
+    public static final int MAX_CHARGERS = 500;
+
+    private static final String FILE_NAME = "last_chargers.bin";
+    private static final String PREFERENCES_NAME = "charger_snapshot";
+    private static final String KEY_LATITUDE = "latitude";
+    private static final String KEY_LONGITUDE = "longitude";
+    private static final String KEY_ZOOM = "zoom";
+
+    private static ChargerSnapshot instance;
+
+    private final Context context;
+    private final File file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Callback interface receiving the restored snapshot.
+     */
+    public interface Callback {
+        /**
+         * Triggered on the main thread once the snapshot has been read.
+         *
+         * @param camera   The camera position last shown, or null if there is none.
+         * @param chargers The chargers last shown, empty if there are none.
+         */
+        void onRestored(CameraPosition camera, ChargerResultSet chargers);
+    }
+
+    private ChargerSnapshot(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * Returns the shared instance, creating it on first use.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared {@code ChargerSnapshot}.
+     */
+    public static synchronized ChargerSnapshot getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChargerSnapshot(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the last snapshot on a background thread.
+     *
+     * @param callback The callback receiving the snapshot on the main thread.
+     */
+    public void restore(Callback callback) {
+        executor.execute(() -> {
+            SharedPreferences preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+            CameraPosition camera = null;
+            if (preferences.contains(KEY_ZOOM)) {
+                camera = CameraPosition.fromLatLngZoom(
+                        new LatLng(preferences.getFloat(KEY_LATITUDE, 0), preferences.getFloat(KEY_LONGITUDE, 0)),
+                        preferences.getFloat(KEY_ZOOM, MyMap.CITY_ZOOM));
+            }
+
+            ChargerResultSet chargers = ChargerResultSet.EMPTY;
+            if (file.exists()) {
+                try {
+                    OfflineChargerStore store = OfflineChargerStore.open(file);
+                    ChargerResultSet.Builder builder = new ChargerResultSet.Builder(store.size());
+                    for (int row = 0; row < store.size(); row++) {
+                        builder.add(store.charger(row));
+                    }
+                    chargers = builder.build();
+                } catch (IOException | RuntimeException e) {
+                    Log.e("EV_SNAPSHOT", "Error restoring chargers: " + e.getMessage());
+                }
+            }
+
+            CameraPosition restoredCamera = camera;
+            ChargerResultSet restoredChargers = chargers;
+            mainHandler.post(() -> callback.onRestored(restoredCamera, restoredChargers));
+        });
+    }
+
+    /**
+     * Stores a snapshot on a background thread, replacing the previous one.
+     * Only the {@value #MAX_CHARGERS} chargers nearest the camera are kept.
+     *
+     * @param camera   The camera position shown.
+     * @param chargers The chargers shown.
+     */
+    public void save(CameraPosition camera, ChargerResultSet chargers) {
+        executor.execute(() -> {
+            context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE).edit()
+                    .putFloat(KEY_LATITUDE, (float) camera.target.latitude)
+                    .putFloat(KEY_LONGITUDE, (float) camera.target.longitude)
+                    .putFloat(KEY_ZOOM, camera.zoom)
+                    .apply();
+
+            List<EVCharger> nearest = ChargerPipeline.dedupeAndSort(camera.target, chargers.toList());
+            nearest = nearest.subList(0, Math.min(MAX_CHARGERS, nearest.size()));
+
+            // Write to a temporary file first, so a crash mid-write cannot leave a corrupt snapshot.
+            File temp = new File(file.getPath() + ".tmp");
+            try {
+                OfflineChargerStore.write(nearest, temp);
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Cannot replace " + file);
+                }
+            } catch (IOException e) {
+                Log.e("EV_SNAPSHOT", "Error saving chargers: " + e.getMessage());
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+            }
+        });
+    }
+}
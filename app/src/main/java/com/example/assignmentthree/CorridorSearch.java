@@ -0,0 +1,200 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds the chargers along a route. The route's {@link RouteCorridor} is covered by query circles, and each
+ * circle is answered from the {@link ChargerIndex} if it lies in an area already downloaded, from the
+ * {@link ChargerCache} if a fresh copy is stored, and otherwise from Open Charge Map. Network queries run in
+ * parallel, but no more than {@value #MAX_CONCURRENT_REQUESTS} at a time. The results are de-duplicated by
+ * Open Charge Map id and projected onto the route.
+ */
+public class CorridorSearch {
+    /** Default maximum distance of a charger from the route. */
+    public static final double DEFAULT_MAX_DISTANCE_FROM_ROUTE_METERS = 2_000;
+
+    /** Radius of each query circle. Larger circles mean fewer requests but more chargers outside the corridor. */
+    public static final double QUERY_RADIUS_METERS = 10_000;
+
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int MAX_RESULTS_PER_QUERY = 500;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final OcmRequestCoordinator requestCoordinator;
+    private final ChargerCache chargerCache;
+    private final ChargerIndex chargerIndex = ChargerIndex.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Callback interface receiving the chargers along a route.
+     */
+    public interface Callback {
+        /**
+         * Triggered on the main thread once every part of the route has been searched.
+         *
+         * @param chargers The chargers within the corridor, in the order they are passed on the route.
+         */
+        void onResult(List<RouteCharger> chargers);
+    }
+
+    /**
+     * A search in progress. All methods must be called on the main thread.
+     */
+    public final class Search {
+        private final RouteCorridor corridor;
+        private final Callback callback;
+        private final ArrayDeque<RouteCorridor.Circle> pendingCircles = new ArrayDeque<>();
+        private final ArrayList<EVCharger> found = new ArrayList<>();
+        private final ArrayList<OcmRequestCoordinator.Ticket> tickets = new ArrayList<>();
+        private int running;
+        private boolean cancelled;
+
+        private Search(RouteCorridor corridor, Callback callback) {
+            this.corridor = corridor;
+            this.callback = callback;
+        }
+
+        /**
+         * Cancels the search. Requests still waiting are cancelled and the callback is not called.
+         */
+        public void cancel() {
+            cancelled = true;
+            pendingCircles.clear();
+            for (OcmRequestCoordinator.Ticket ticket : tickets) {
+                ticket.cancel();
+            }
+            tickets.clear();
+        }
+
+        /**
+         * Starts loading circles until the concurrency limit is reached, and finishes once all have been loaded.
+         */
+        private void loadNext() {
+            while (!cancelled && running < MAX_CONCURRENT_REQUESTS && !pendingCircles.isEmpty()) {
+                running++;
+                load(pendingCircles.poll());
+            }
+
+            if (!cancelled && running == 0 && pendingCircles.isEmpty()) {
+                finish();
+            }
+        }
+
+        private void load(RouteCorridor.Circle circle) {
+            LatLng centre = circle.getCentre();
+            String params = String.format(Locale.US, "distance=%.1f&distanceunit=KM&maxresults=%d",
+                    circle.getRadiusMeters() / 1000, MAX_RESULTS_PER_QUERY);
+            String key = ChargerCache.keyFor(centre, params);
+
+            chargerCache.get(key, entry -> {
+                if (cancelled) {
+                    return;
+                }
+                if (entry != null && entry.isFresh()) {
+                    loaded(circle, entry.getChargers());
+                    return;
+                }
+
+                String url = OcmQuery.near(centre)
+                        .within(circle.getRadiusMeters() / 1000)
+                        .maxResults(MAX_RESULTS_PER_QUERY)
+                        .toUrl();
+
+                OcmRequestCoordinator.Ticket[] ticket = new OcmRequestCoordinator.Ticket[1];
+                ticket[0] = requestCoordinator.fetch(url,
+                        response -> {
+                            tickets.remove(ticket[0]);
+                            chargerCache.put(key, response);
+                            loaded(circle, response);
+                        },
+                        error -> {
+                            tickets.remove(ticket[0]);
+                            Log.e("EV_API", "Error fetching route chargers: " + error.toString());
+
+                            // A stale copy is better than a gap in the route.
+                            loaded(circle, entry != null ? entry.getChargers() : new ArrayList<>());
+                        });
+                tickets.add(ticket[0]);
+            });
+        }
+
+        private void loaded(RouteCorridor.Circle circle, List<EVCharger> chargers) {
+            found.addAll(chargers);
+
+            // Index the circle, so later searches of overlapping routes are answered without a request.
+            executor.execute(() -> {
+                chargerIndex.insertAll(chargers);
+                if (chargers.size() < MAX_RESULTS_PER_QUERY) {
+                    chargerIndex.markCovered(circle.getCentre(), circle.getRadiusMeters());
+                }
+            });
+
+            running--;
+            loadNext();
+        }
+
+        private void finish() {
+            ArrayList<EVCharger> candidates = new ArrayList<>(found);
+            executor.execute(() -> {
+                // The circles overlap, so the same charger is usually found more than once.
+                List<EVCharger> unique = ChargerPipeline.dedupeAndSort(corridor.getStart(), candidates);
+                List<RouteCharger> result = corridor.chargersAlongRoute(unique);
+
+                mainHandler.post(() -> {
+                    if (!cancelled) {
+                        callback.onResult(result);
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context The context used to get the shared request coordinator and cache.
+     */
+    public CorridorSearch(Context context) {
+        this.requestCoordinator = OcmRequestCoordinator.getInstance(context);
+        this.chargerCache = ChargerCache.getInstance(context);
+    }
+
+    /**
+     * Searches for the chargers along a route. Must be called on the main thread.
+     *
+     * @param route                      The points of the route, in driving order.
+     * @param maxDistanceFromRouteMeters The maximum distance of a charger from the route,
+     *                                   less than {@link #QUERY_RADIUS_METERS}.
+     * @param callback                   The callback receiving the chargers on the main thread.
+     * @return The search, which can be cancelled.
+     */
+    public Search search(List<LatLng> route, double maxDistanceFromRouteMeters, Callback callback) {
+        RouteCorridor corridor = new RouteCorridor(route, maxDistanceFromRouteMeters);
+        Search search = new Search(corridor, callback);
+
+        for (RouteCorridor.Circle circle : corridor.queryCircles(QUERY_RADIUS_METERS)) {
+            List<EVCharger> indexed = chargerIndex.withinRadiusIfCovered(circle.getCentre(), circle.getRadiusMeters());
+            if (indexed != null) {
+                search.found.addAll(indexed);
+            } else {
+                search.pendingCircles.add(circle);
+            }
+        }
+
+        search.loadNext();
+        return search;
+    }
+}
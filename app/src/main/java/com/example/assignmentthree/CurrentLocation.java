@@ -2,26 +2,122 @@ package com.example.assignmentthree;
 
 import android.annotation.SuppressLint;
 import android.app.Activity;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.location.Location;
+import android.os.BatteryManager;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.view.Choreographer;
 
+import androidx.annotation.NonNull;
 import androidx.core.app.ActivityCompat;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 
 /**
  * This class is responsible for retrieving the current location of the device using the Fused Location Provider.
+ * Besides a one-shot last location, it can stream location updates. While streaming, the requested priority
+ * is lowered automatically when the app is in the background, the battery is low or battery saver is on,
+ * and observers are called at most once per display frame.
  */
 public class CurrentLocation {
+    /** Priority used for location updates unless another one is requested. */
+    public static final int DEFAULT_PRIORITY = LocationRequest.PRIORITY_HIGH_ACCURACY;
+
+    /** Interval between location updates unless another one is requested. */
+    public static final long DEFAULT_INTERVAL_MILLIS = 5_000;
+
+    /** Distance the user must move before observers are told to refresh nearby chargers, unless another one is requested. */
+    public static final double DEFAULT_REFRESH_DISTANCE_METERS = 500;
+
     private static final int FINE_PERMISSION_CODE = 1;
+
+    // Movements smaller than this are GPS jitter, so the provider does not need to report them at all
+    private static final float MIN_DISPLACEMENT_METERS = 10;
+
+    // How much less often updates are requested in the background and on low battery
+    private static final long BACKGROUND_INTERVAL_FACTOR = 6;
+    private static final long LOW_BATTERY_INTERVAL_FACTOR = 2;
+
+    // Battery level at or below which updates are downgraded, as a percentage
+    private static final int LOW_BATTERY_PERCENT = 15;
+
     private Location lastLocation;
     private final FusedLocationProviderClient fusedLocationProviderClient;
     private final Context context;
 
+    // Requested update settings, and the ones actually in effect after any downgrade
+    private LocationObserver locationObserver;
+    private LocationFilter refreshFilter;
+    private int requestedPriority;
+    private long requestedIntervalMillis;
+    private int activePriority;
+    private long activeIntervalMillis;
+    private boolean foreground = true;
+    private boolean lowBattery;
+
+    // The newest location not yet delivered, waiting for the next frame
+    private Location pendingLocation;
+    private boolean pendingMovedSignificantly;
+    private boolean frameScheduled;
+
+    /**
+     * Callback interface receiving streamed location updates.
+     */
+    public interface LocationObserver {
+        /**
+         * Triggered on the main thread with the newest location, at most once per display frame.
+         *
+         * @param location           The newest location.
+         * @param movedSignificantly True if the user has moved at least the refresh distance since the last
+         *                           time this was true, so location-dependent data should be refreshed.
+         */
+        void update(Location location, boolean movedSignificantly);
+    }
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            Location location = result.getLastLocation();
+            if (location != null) {
+                onLocationUpdate(location);
+            }
+        }
+    };
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_BATTERY_LOW.equals(intent.getAction())) {
+                lowBattery = true;
+            } else if (Intent.ACTION_BATTERY_OKAY.equals(intent.getAction())) {
+                lowBattery = false;
+            }
+            applyLocationRequest();
+        }
+    };
+
+    private final Choreographer.FrameCallback deliverFrame = frameTimeNanos -> {
+        frameScheduled = false;
+        if (locationObserver != null && pendingLocation != null) {
+            Location location = pendingLocation;
+            boolean movedSignificantly = pendingMovedSignificantly;
+            pendingLocation = null;
+            pendingMovedSignificantly = false;
+            locationObserver.update(location, movedSignificantly);
+        }
+    };
+
     /**
      * Constructor to initialize the CurrentLocation class.
      *
@@ -67,6 +163,147 @@ public class CurrentLocation {
         });
     }
 
+    /**
+     * Starts streaming location updates with the default priority, interval and refresh distance.
+     *
+     * @param observer The observer receiving the updates.
+     */
+    public void startLocationUpdates(LocationObserver observer) {
+        startLocationUpdates(DEFAULT_PRIORITY, DEFAULT_INTERVAL_MILLIS, DEFAULT_REFRESH_DISTANCE_METERS, observer);
+    }
+
+    /**
+     * Starts streaming location updates, replacing any earlier stream. Does nothing without location permission;
+     * call it again once permission has been granted.
+     *
+     * @param priority              The {@link LocationRequest} priority to use while in the foreground.
+     * @param intervalMillis        The interval between updates while in the foreground.
+     * @param refreshDistanceMeters The distance the user must move before an update is marked as significant.
+     * @param observer              The observer receiving the updates.
+     */
+    public void startLocationUpdates(int priority, long intervalMillis, double refreshDistanceMeters, LocationObserver observer) {
+        if (!hasLocationPermission()) {
+            return;
+        }
+
+        stopLocationUpdates();
+
+        this.requestedPriority = priority;
+        this.requestedIntervalMillis = intervalMillis;
+        this.refreshFilter = new LocationFilter(refreshDistanceMeters);
+        this.locationObserver = observer;
+
+        // The low and okay broadcasts only report changes, so read the current level once.
+        Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery != null) {
+            int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            boolean charging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            lowBattery = !charging && level >= 0 && scale > 0 && level * 100 <= LOW_BATTERY_PERCENT * scale;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_BATTERY_LOW);
+        filter.addAction(Intent.ACTION_BATTERY_OKAY);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        context.registerReceiver(batteryReceiver, filter);
+
+        applyLocationRequest();
+    }
+
+    /**
+     * Stops streaming location updates.
+     */
+    public void stopLocationUpdates() {
+        if (locationObserver == null) {
+            return;
+        }
+
+        fusedLocationProviderClient.removeLocationUpdates(locationCallback);
+        context.unregisterReceiver(batteryReceiver);
+        Choreographer.getInstance().removeFrameCallback(deliverFrame);
+
+        locationObserver = null;
+        pendingLocation = null;
+        frameScheduled = false;
+        activePriority = 0;
+        activeIntervalMillis = 0;
+    }
+
+    /**
+     * Tells the location stream whether the app is in the foreground. In the background, updates are
+     * requested at low power and less often. Should be called from the activity's onStart and onStop.
+     *
+     * @param foreground True if the app is visible.
+     */
+    public void setForeground(boolean foreground) {
+        this.foreground = foreground;
+        applyLocationRequest();
+    }
+
+    /**
+     * Requests location updates with the requested settings, downgraded for the background or a low battery,
+     * unless the settings in effect are already the same.
+     */
+    @SuppressLint("MissingPermission")
+    private void applyLocationRequest() {
+        if (locationObserver == null || !hasLocationPermission()) {
+            return;
+        }
+
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        boolean saveBattery = lowBattery || (powerManager != null && powerManager.isPowerSaveMode());
+
+        int priority = requestedPriority;
+        long intervalMillis = requestedIntervalMillis;
+        if (!foreground) {
+            priority = LocationRequest.PRIORITY_LOW_POWER;
+            intervalMillis *= BACKGROUND_INTERVAL_FACTOR;
+        } else if (saveBattery) {
+            if (priority == LocationRequest.PRIORITY_HIGH_ACCURACY) {
+                priority = LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY;
+            }
+            intervalMillis *= LOW_BATTERY_INTERVAL_FACTOR;
+        }
+
+        if (priority == activePriority && intervalMillis == activeIntervalMillis) {
+            return;
+        }
+        activePriority = priority;
+        activeIntervalMillis = intervalMillis;
+
+        LocationRequest request = LocationRequest.create()
+                .setPriority(priority)
+                .setInterval(intervalMillis)
+                .setFastestInterval(intervalMillis / 2)
+                .setSmallestDisplacement(MIN_DISPLACEMENT_METERS);
+
+        fusedLocationProviderClient.removeLocationUpdates(locationCallback);
+        fusedLocationProviderClient.requestLocationUpdates(request, locationCallback, Looper.getMainLooper());
+    }
+
+    /**
+     * Records a new location and schedules its delivery for the next frame, so several updates arriving
+     * between two frames cause a single redraw.
+     */
+    private void onLocationUpdate(Location location) {
+        lastLocation = location;
+        if (refreshFilter.accept(location.getLatitude(), location.getLongitude())) {
+            pendingMovedSignificantly = true;
+        }
+        pendingLocation = location;
+
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(deliverFrame);
+        }
+    }
+
+    private boolean hasLocationPermission() {
+        return ActivityCompat.checkSelfPermission(context, android.Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED ||
+                ActivityCompat.checkSelfPermission(context, android.Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
     /**
      * Returns the most recently retrieved location of the device.
      *
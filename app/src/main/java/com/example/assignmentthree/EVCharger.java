@@ -1,18 +1,29 @@
 package com.example.assignmentthree;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import com.google.android.gms.maps.model.LatLng;
+
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Represents an EV Charger with details such as title, description,
- * address, points available, cost, and location.
+ * address, points available, tariff, and location.
+ * It is {@link Parcelable} so a charger can be handed to another activity as a flat list of
+ * primitives and strings, without the reflection cost of Java serialization.
  */
-public class EVCharger implements Serializable {
+public class EVCharger implements Serializable, Parcelable {
+    /** Id used when the Open Charge Map id of a charger is not known. */
+    public static final int UNKNOWN_ID = 0;
+
+    private final int id;
     private final String title;
     private final String description;
     private final String address;
     private final int points;
-    private final double cost;
+    private final Tariff tariff;
     private final LatLng location;
 
     /**
@@ -26,14 +37,74 @@ public class EVCharger implements Serializable {
      * @param location    The geographical location (latitude and longitude) of the charger.
      */
     public EVCharger(String title, String description, String address, int points, double cost, LatLng location) {
+        this(UNKNOWN_ID, title, description, address, points, cost, location);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param id          The Open Charge Map id of the EV charger.
+     * @param title       The title or name of the EV charger.
+     * @param description The description of the EV charger.
+     * @param address     The address of the EV charger.
+     * @param points      The number of charging points available.
+     * @param cost        The cost of using the charger (per kWh).
+     * @param location    The geographical location (latitude and longitude) of the charger.
+     */
+    public EVCharger(int id, String title, String description, String address, int points, double cost, LatLng location) {
+        this(id, title, description, address, points, Tariff.ofPerKwh(cost), location);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param id          The Open Charge Map id of the EV charger.
+     * @param title       The title or name of the EV charger.
+     * @param description The description of the EV charger.
+     * @param address     The address of the EV charger.
+     * @param points      The number of charging points available.
+     * @param tariff      The price of charging, as parsed by {@link TariffParser}.
+     * @param location    The geographical location (latitude and longitude) of the charger.
+     */
+    public EVCharger(int id, String title, String description, String address, int points, Tariff tariff, LatLng location) {
+        this.id = id;
         this.title = title;
         this.description = description;
         this.address = address;
         this.points = points;
-        this.cost = cost;
+        this.tariff = tariff;
         this.location = location;
     }
 
+    /**
+     * Creator used to rebuild an EV charger from a {@link Parcel}.
+     */
+    public static final Creator<EVCharger> CREATOR = new Creator<EVCharger>() {
+        @Override
+        public EVCharger createFromParcel(Parcel in) {
+            int id = in.readInt();
+            String title = in.readString();
+            String description = in.readString();
+            String address = in.readString();
+            int points = in.readInt();
+            Tariff tariff = new Tariff(in.readDouble(), in.readDouble(), in.readDouble(), in.readString(), in.readInt() != 0);
+            LatLng location = new LatLng(in.readDouble(), in.readDouble());
+            return new EVCharger(id, title, description, address, points, tariff, location);
+        }
+
+        @Override
+        public EVCharger[] newArray(int size) {
+            return new EVCharger[size];
+        }
+    };
+
+    /**
+     * Gets the Open Charge Map id of the EV charger.
+     *
+     * @return The id, or {@link #UNKNOWN_ID} if it is not known.
+     */
+    public int getId() { return id; }
+
     /**
      * Gets the title of the EV charger.
      *
@@ -65,9 +136,16 @@ public class EVCharger implements Serializable {
     /**
      * Gets the cost of using the charger per kWh.
      *
-     * @return The cost per kWh.
+     * @return The cost per kWh, or 0 if the charger does not charge per kWh or the price is unknown.
      */
-    public double getCost() { return cost; }
+    public double getCost() { return Double.isNaN(tariff.getPerKwh()) ? 0.0 : tariff.getPerKwh(); }
+
+    /**
+     * Gets the full price of charging, including per-minute and flat fees.
+     *
+     * @return The tariff of the EV charger.
+     */
+    public Tariff getTariff() { return tariff; }
 
     /**
      * Gets the geographical location of the EV charger.
@@ -75,4 +153,40 @@ public class EVCharger implements Serializable {
      * @return The latitude and longitude of the EV charger.
      */
     public LatLng getLocation() { return location; }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeString(title);
+        dest.writeString(description);
+        dest.writeString(address);
+        dest.writeInt(points);
+        dest.writeDouble(tariff.getPerKwh());
+        dest.writeDouble(tariff.getPerMinute());
+        dest.writeDouble(tariff.getFlatFee());
+        dest.writeString(tariff.getCurrency());
+        dest.writeInt(tariff.isFree() ? 1 : 0);
+        dest.writeDouble(location.latitude);
+        dest.writeDouble(location.longitude);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EVCharger)) return false;
+        EVCharger that = (EVCharger) o;
+        return id == that.id && points == that.points && Objects.equals(tariff, that.tariff)
+                && Objects.equals(title, that.title) && Objects.equals(description, that.description)
+                && Objects.equals(address, that.address) && Objects.equals(location, that.location);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, description, address, points, tariff, location);
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+/**
+ * Small collection of geographic helper functions that do not depend on the Android framework,
+ * so they can be used from background threads and plain JVM unit tests.
+ */
+public final class GeoMath {
+    /** Mean radius of the Earth in metres. */
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    /** Length of one degree of latitude in metres. */
+    public static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180.0;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Calculates the great-circle distance between two points using the haversine formula.
+     *
+     * @param lat1 Latitude of the first point in degrees.
+     * @param lon1 Longitude of the first point in degrees.
+     * @param lat2 Latitude of the second point in degrees.
+     * @param lon2 Longitude of the second point in degrees.
+     * @return The distance between the points in metres.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Calculates the great-circle distance between two locations.
+     *
+     * @param from The first location.
+     * @param to   The second location.
+     * @return The distance between the locations in metres.
+     */
+    public static double distanceMeters(LatLng from, LatLng to) {
+        return distanceMeters(from.latitude, from.longitude, to.latitude, to.longitude);
+    }
+
+    /**
+     * Checks whether a point lies inside a latitude/longitude box. The box may cross the antimeridian,
+     * in which case its western edge is east of its eastern one, and its edges may lie beyond 180 degrees.
+     *
+     * @param latitude  Latitude of the point in degrees.
+     * @param longitude Longitude of the point in degrees.
+     * @param south     The southern latitude of the box.
+     * @param west      The western longitude of the box.
+     * @param north     The northern latitude of the box.
+     * @param east      The eastern longitude of the box.
+     * @return True if the point is inside the box or on its edge.
+     */
+    public static boolean isWithin(double latitude, double longitude, double south, double west, double north, double east) {
+        if (latitude < south || latitude > north) {
+            return false;
+        }
+
+        double width = east - west;
+        if (width < 0) {
+            width += 360;
+        }
+        if (width >= 360) {
+            return true;
+        }
+
+        double offset = (longitude - west) % 360;
+        if (offset < 0) {
+            offset += 360;
+        }
+        return offset <= width;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.assignmentthree;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded disk cache of encoded images, one file per key. When the cache grows beyond its limit,
+ * the least recently used images are deleted. It can also remember that there is no image for a key,
+ * so a known miss is not requested again. Keys must be usable as file names.
+ * Safe to use from several threads.
+ */
+public class ImageDiskCache {
+    private static final String IMAGE_SUFFIX = ".img";
+    private static final String NO_IMAGE_SUFFIX = ".none";
+
+    private final File directory;
+    private final long maxBytes;
+
+    // File name to size, least recently used first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Constructor. Images already in the directory are kept, oldest first in the eviction order.
+     *
+     * @param directory The directory holding the images. It is created if needed.
+     * @param maxBytes  The maximum total size of the images.
+     */
+    public ImageDiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            directory.mkdirs();
+            return;
+        }
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (file.getName().endsWith(IMAGE_SUFFIX) || file.getName().endsWith(NO_IMAGE_SUFFIX)) {
+                entries.put(file.getName(), file.length());
+                totalBytes += file.length();
+            } else {
+                // Left over from an interrupted write
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads an image.
+     *
+     * @param key The key of the image.
+     * @return The encoded image, or null if it is not cached.
+     */
+    public synchronized byte[] get(String key) {
+        String name = key + IMAGE_SUFFIX;
+        if (entries.get(name) == null) {
+            return null;
+        }
+
+        File file = new File(directory, name);
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] data = new byte[(int) in.length()];
+            in.readFully(data);
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (IOException e) {
+            remove(name);
+            return null;
+        }
+    }
+
+    /**
+     * Stores an image, replacing any earlier one with the same key, and evicts the least recently used
+     * images if the cache is now too large.
+     *
+     * @param key  The key of the image.
+     * @param data The encoded image.
+     */
+    public synchronized void put(String key, byte[] data) {
+        write(key + IMAGE_SUFFIX, data);
+    }
+
+    /**
+     * Records that there is no image for a key.
+     *
+     * @param key The key without an image.
+     */
+    public synchronized void putNoImage(String key) {
+        write(key + NO_IMAGE_SUFFIX, new byte[0]);
+    }
+
+    /**
+     * Whether it has been recorded that there is no image for a key.
+     *
+     * @param key The key.
+     * @return True if {@link #putNoImage(String)} was called for the key and the record has not been evicted.
+     */
+    public synchronized boolean hasNoImage(String key) {
+        return entries.get(key + NO_IMAGE_SUFFIX) != null;
+    }
+
+    /**
+     * Gets the total size of the cached images.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Deletes all cached images and records.
+     */
+    public synchronized void clear() {
+        for (String name : entries.keySet()) {
+            new File(directory, name).delete();
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private void write(String name, byte[] data) {
+        // Write to a temporary file first, so a crash never leaves a truncated image behind.
+        File temp = new File(directory, name + ".tmp");
+        File file = new File(directory, name);
+        try {
+            directory.mkdirs();
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(data);
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not rename " + temp);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+
+        Long previous = entries.put(name, (long) data.length);
+        totalBytes += data.length - (previous != null ? previous : 0);
+        trim();
+    }
+
+    private void remove(String name) {
+        Long size = entries.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        new File(directory, name).delete();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            new File(directory, eldest.getKey()).delete();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.assignmentthree;
+
+/**
+ * Passes on a location only once it is a minimum distance away from the last location passed on,
+ * so work that depends on the user's position, such as querying nearby chargers, is not repeated
+ * for every small movement or GPS jitter.
+ */
+public class LocationFilter {
+    private final double minDistanceMeters;
+    private double lastLatitude = Double.NaN;
+    private double lastLongitude = Double.NaN;
+
+    /**
+     * Constructor.
+     *
+     * @param minDistanceMeters The distance a location must be from the last accepted one to be accepted.
+     */
+    public LocationFilter(double minDistanceMeters) {
+        this.minDistanceMeters = minDistanceMeters;
+    }
+
+    /**
+     * Checks a new location, remembering it if it is accepted. The first location is always accepted.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return True if the location is far enough from the last accepted one.
+     */
+    public boolean accept(double latitude, double longitude) {
+        if (!Double.isNaN(lastLatitude)
+                && GeoMath.distanceMeters(lastLatitude, lastLongitude, latitude, longitude) < minDistanceMeters) {
+            return false;
+        }
+
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        return true;
+    }
+
+    /**
+     * Forgets the last accepted location, so the next one is accepted.
+     */
+    public void reset() {
+        lastLatitude = Double.NaN;
+        lastLongitude = Double.NaN;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups EV chargers that would overlap on screen into clusters, using a grid whose cells are a fixed
+ * number of screen pixels wide at the given zoom level. It has no Android dependencies, so it can run
+ * on a background thread and in plain JVM unit tests.
+ */
+public final class MarkerClusterer {
+    /** Width of a clustering cell in screen pixels. */
+    public static final int CELL_SIZE_PIXELS = 80;
+
+    /** At or above this zoom level every charger gets its own marker. */
+    public static final int MAX_CLUSTER_ZOOM = 15;
+
+    /** Cells with fewer chargers than this show them individually. */
+    public static final int MIN_CLUSTER_SIZE = 4;
+
+    private MarkerClusterer() {
+    }
+
+    /**
+     * A marker to show on the map: either a single charger or a cluster of nearby chargers.
+     */
+    public static class Cluster {
+        private final String key;
+        private final LatLng position;
+        private final List<EVCharger> chargers;
+
+        Cluster(String key, LatLng position, List<EVCharger> chargers) {
+            this.key = key;
+            this.position = position;
+            this.chargers = chargers;
+        }
+
+        /**
+         * Gets a key that stays the same for the same marker across recomputations, used to diff markers.
+         *
+         * @return The key of the marker.
+         */
+        public String getKey() { return key; }
+
+        /**
+         * Gets the position of the marker.
+         *
+         * @return The charger location, or the centroid of the clustered chargers.
+         */
+        public LatLng getPosition() { return position; }
+
+        /**
+         * Gets the chargers represented by the marker.
+         *
+         * @return An unmodifiable list of chargers.
+         */
+        public List<EVCharger> getChargers() { return chargers; }
+
+        /**
+         * Whether the marker represents more than one charger.
+         *
+         * @return True for a cluster marker, false for a single charger.
+         */
+        public boolean isCluster() { return chargers.size() > 1; }
+    }
+
+    /**
+     * Clusters chargers for the given zoom level.
+     *
+     * @param chargers The chargers to cluster.
+     * @param zoom     The map zoom level.
+     * @return The markers to show, single chargers and clusters.
+     */
+    public static List<Cluster> cluster(List<EVCharger> chargers, float zoom) {
+        ArrayList<Cluster> result = new ArrayList<>();
+        int zoomLevel = (int) Math.floor(zoom);
+
+        if (zoomLevel >= MAX_CLUSTER_ZOOM) {
+            for (EVCharger charger : chargers) {
+                result.add(single(charger));
+            }
+            return result;
+        }
+
+        // A 256 pixel world tile spans 360 degrees of longitude at zoom 0, halving with every zoom level.
+        double cellDegrees = CELL_SIZE_PIXELS * 360.0 / (256.0 * Math.pow(2, zoomLevel));
+
+        LinkedHashMap<Long, ArrayList<EVCharger>> cells = new LinkedHashMap<>();
+        for (EVCharger charger : chargers) {
+            LatLng location = charger.getLocation();
+            long x = (long) Math.floor(location.longitude / cellDegrees);
+            long y = (long) Math.floor(location.latitude / cellDegrees);
+            long cellKey = (y << 32) | (x & 0xffffffffL);
+
+            ArrayList<EVCharger> cell = cells.get(cellKey);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.put(cellKey, cell);
+            }
+            cell.add(charger);
+        }
+
+        for (Map.Entry<Long, ArrayList<EVCharger>> entry : cells.entrySet()) {
+            ArrayList<EVCharger> cell = entry.getValue();
+
+            if (cell.size() < MIN_CLUSTER_SIZE) {
+                for (EVCharger charger : cell) {
+                    result.add(single(charger));
+                }
+                continue;
+            }
+
+            double latitude = 0;
+            double longitude = 0;
+            for (EVCharger charger : cell) {
+                latitude += charger.getLocation().latitude;
+                longitude += charger.getLocation().longitude;
+            }
+
+            // The key only depends on the cell, so a cluster keeps its marker when chargers join or leave it.
+            String key = "cluster:" + zoomLevel + ":" + entry.getKey();
+            LatLng centroid = new LatLng(latitude / cell.size(), longitude / cell.size());
+            result.add(new Cluster(key, centroid, Collections.unmodifiableList(cell)));
+        }
+
+        return result;
+    }
+
+    private static Cluster single(EVCharger charger) {
+        String key = charger.getId() != EVCharger.UNKNOWN_ID
+                ? "charger:" + charger.getId()
+                : "charger:" + charger.getLocation().latitude + "," + charger.getLocation().longitude;
+        return new Cluster(key, charger.getLocation(), Collections.singletonList(charger));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.assignmentthree;
+
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lightweight performance metrics: timers, counters and histograms kept in a {@link MetricsRegistry}.
+ * Timers are also emitted as {@link Trace} sections, so they show up in Perfetto and systrace captures
+ * next to the framework's own slices. The summary can be logged with {@link #dump()} or read with
+ * {@code adb shell dumpsys activity com.example.assignmentthree/.MapsActivity}.
+ *
+ * <p>Metrics are off by default. While off, every call is a single volatile read, and
+ * {@link #start(String)} returns a shared timer that does nothing, so nothing is allocated.</p>
+ *
+ * <p>Names follow "area.what", e.g. "search.request" or "map.markers_added".</p>
+ */
+public final class Metrics {
+    private static final String TAG = "EV_METRICS";
+
+    private static final MetricsRegistry registry = new MetricsRegistry();
+    private static final AtomicInteger asyncCookies = new AtomicInteger();
+
+    private static volatile boolean enabled;
+
+    /**
+     * A running timer. Stopping it records the elapsed time and ends its trace section.
+     */
+    public static class Timer {
+        // Returned while metrics are off
+        static final Timer NONE = new Timer(null, 0, -1);
+
+        private final String name;
+        private final long startNanos;
+
+        // The cookie of the async trace section, or -1 for a section on the starting thread
+        private final int cookie;
+        private boolean stopped;
+
+        private Timer(String name, long startNanos, int cookie) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.cookie = cookie;
+        }
+
+        /**
+         * Stops the timer and records its duration. Later calls do nothing.
+         * A timer from {@link Metrics#start(String)} must be stopped on the thread that started it.
+         */
+        public void stop() {
+            if (name == null || stopped) {
+                return;
+            }
+            stopped = true;
+
+            registry.recordTime(name, System.nanoTime() - startNanos);
+            if (cookie < 0) {
+                Trace.endSection();
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                Trace.endAsyncSection(name, cookie);
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Turns metrics on or off. Timers already running when they are turned off are still recorded.
+     *
+     * @param enabled True to record metrics.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Whether metrics are being recorded.
+     *
+     * @return True if metrics are on.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a timer for work that finishes on the same thread, as a nested trace section.
+     *
+     * @param name The name of the timer and trace section.
+     * @return The running timer.
+     */
+    public static Timer start(String name) {
+        if (!enabled) {
+            return Timer.NONE;
+        }
+        Trace.beginSection(name);
+        return new Timer(name, System.nanoTime(), -1);
+    }
+
+    /**
+     * Starts a timer for work that may finish on another thread, e.g. a network request.
+     * It is traced as an async section on Android 10 and later.
+     *
+     * @param name The name of the timer and trace section.
+     * @return The running timer.
+     */
+    public static Timer startAsync(String name) {
+        if (!enabled) {
+            return Timer.NONE;
+        }
+        int cookie = asyncCookies.getAndIncrement() & Integer.MAX_VALUE;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, cookie);
+        }
+        return new Timer(name, System.nanoTime(), cookie);
+    }
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param name The name of the counter.
+     */
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param name  The name of the counter.
+     * @param delta The amount to add.
+     */
+    public static void count(String name, long delta) {
+        if (enabled) {
+            registry.increment(name, delta);
+        }
+    }
+
+    /**
+     * Records a value in a histogram, e.g. a payload size.
+     *
+     * @param name  The name of the histogram.
+     * @param value The value.
+     */
+    public static void record(String name, long value) {
+        if (enabled) {
+            registry.recordValue(name, value);
+        }
+    }
+
+    /**
+     * Gets the summary of every metric recorded so far.
+     *
+     * @return One line per counter or histogram.
+     */
+    public static List<String> summary() {
+        return registry.summary();
+    }
+
+    /**
+     * Logs the summary of every metric recorded so far.
+     */
+    public static void dump() {
+        for (String line : registry.summary()) {
+            Log.d(TAG, line);
+        }
+    }
+
+    /**
+     * Clears every metric, e.g. before measuring a scenario.
+     */
+    public static void reset() {
+        registry.reset();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.assignmentthree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named counters and histograms for the app's performance metrics, see {@link Metrics}.
+ * Histograms keep their count, sum and maximum since the last reset, and the most recent
+ * {@value #WINDOW} samples for percentiles, so their memory use stays fixed however long the app runs.
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public class MetricsRegistry {
+    /** The number of recent samples each histogram keeps for percentiles. */
+    public static final int WINDOW = 256;
+
+    private final TreeMap<String, long[]> counters = new TreeMap<>();
+    private final TreeMap<String, Histogram> histograms = new TreeMap<>();
+
+    /**
+     * A distribution of values, e.g. durations or payload sizes.
+     */
+    public static final class Histogram {
+        private final boolean time;
+        private final long[] window = new long[WINDOW];
+        private long count;
+        private long sum;
+        private long max;
+
+        private Histogram(boolean time) {
+            this.time = time;
+        }
+
+        private synchronized void record(long value) {
+            window[(int) (count % WINDOW)] = value;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        /** @return The number of values recorded. */
+        public synchronized long getCount() { return count; }
+
+        /** @return The sum of the values recorded. */
+        public synchronized long getSum() { return sum; }
+
+        /** @return The largest value recorded, or 0 if there is none. */
+        public synchronized long getMax() { return max; }
+
+        /**
+         * Gets a percentile of the most recent values.
+         *
+         * @param percentile The percentile, from 0 to 100.
+         * @return The value at that percentile, or 0 if nothing has been recorded.
+         */
+        public synchronized long getPercentile(double percentile) {
+            int size = (int) Math.min(count, WINDOW);
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(window, size);
+            Arrays.sort(sorted);
+
+            // Nearest-rank percentile
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(0, Math.min(size - 1, rank - 1))];
+        }
+
+        private synchronized String describe() {
+            if (time) {
+                return String.format(Locale.US, "n=%d p50=%.1fms p95=%.1fms max=%.1fms",
+                        count, getPercentile(50) / 1000.0, getPercentile(95) / 1000.0, max / 1000.0);
+            }
+            return String.format(Locale.US, "n=%d p50=%d p95=%d max=%d sum=%d",
+                    count, getPercentile(50), getPercentile(95), max, sum);
+        }
+    }
+
+    /**
+     * Adds to a counter, creating it on first use.
+     *
+     * @param name  The name of the counter.
+     * @param delta The amount to add.
+     */
+    public void increment(String name, long delta) {
+        synchronized (counters) {
+            long[] counter = counters.get(name);
+            if (counter == null) {
+                counter = new long[1];
+                counters.put(name, counter);
+            }
+            counter[0] += delta;
+        }
+    }
+
+    /**
+     * Gets the value of a counter.
+     *
+     * @param name The name of the counter.
+     * @return The value, or 0 if the counter has not been used.
+     */
+    public long getCount(String name) {
+        synchronized (counters) {
+            long[] counter = counters.get(name);
+            return counter != null ? counter[0] : 0;
+        }
+    }
+
+    /**
+     * Records a duration in a timer histogram, creating it on first use.
+     *
+     * @param name  The name of the timer.
+     * @param nanos The duration in nanoseconds. It is kept in microseconds.
+     */
+    public void recordTime(String name, long nanos) {
+        histogram(name, true).record(nanos / 1000);
+    }
+
+    /**
+     * Records a value in a histogram, creating it on first use.
+     *
+     * @param name  The name of the histogram.
+     * @param value The value, e.g. a size in bytes.
+     */
+    public void recordValue(String name, long value) {
+        histogram(name, false).record(value);
+    }
+
+    /**
+     * Gets a histogram.
+     *
+     * @param name The name of the histogram or timer.
+     * @return The histogram, or null if nothing has been recorded under that name.
+     */
+    public Histogram getHistogram(String name) {
+        synchronized (histograms) {
+            return histograms.get(name);
+        }
+    }
+
+    /**
+     * Removes all counters and histograms.
+     */
+    public void reset() {
+        synchronized (counters) {
+            counters.clear();
+        }
+        synchronized (histograms) {
+            histograms.clear();
+        }
+    }
+
+    /**
+     * Describes every counter and then every histogram, one per line and sorted by name,
+     * e.g. "search.request: n=12 p50=120.0ms p95=340.0ms max=410.2ms".
+     *
+     * @return The lines of the summary.
+     */
+    public List<String> summary() {
+        ArrayList<String> lines = new ArrayList<>();
+        synchronized (counters) {
+            for (Map.Entry<String, long[]> counter : counters.entrySet()) {
+                lines.add(counter.getKey() + ": " + counter.getValue()[0]);
+            }
+        }
+
+        ArrayList<Map.Entry<String, Histogram>> entries;
+        synchronized (histograms) {
+            entries = new ArrayList<>(histograms.entrySet());
+        }
+        for (Map.Entry<String, Histogram> histogram : entries) {
+            lines.add(histogram.getKey() + ": " + histogram.getValue().describe());
+        }
+        return lines;
+    }
+
+    private Histogram histogram(String name, boolean time) {
+        synchronized (histograms) {
+            Histogram histogram = histograms.get(name);
+            if (histogram == null) {
+                histogram = new Histogram(time);
+                histograms.put(name, histogram);
+            }
+            return histogram;
+        }
+    }
+}
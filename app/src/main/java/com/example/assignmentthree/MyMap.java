@@ -1,31 +1,98 @@
 package com.example.assignmentthree;
 
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
 
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class is responsible for handling Google Map interactions, including managing markers
  * for current location, searched locations, and EV sites.
+ * EV site markers are keyed, so updates only add and remove the markers that changed, and dense
+ * chargers are collapsed into count markers by {@link MarkerClusterer} depending on the zoom level.
+ * Once more than {@value #MAX_EV_SITE_CHARGERS} chargers have been added, those far from the visible
+ * area are dropped, and {@link EVSiteEvictionObserver}s are told which area was kept.
  */
 public class MyMap {
     public static final float CITY_ZOOM = 12f;
 
+    /** The most chargers kept for the map before those far from the visible area are dropped. */
+    public static final int MAX_EV_SITE_CHARGERS = 5_000;
+
+    private static final int CLUSTER_COLOR = 0xFF2E7D32;
+    private static final ExecutorService clusterExecutor = Executors.newSingleThreadExecutor();
+
+    // Chargers within this many degrees of the visible area, or one visible area if larger, are never dropped
+    private static final double MIN_KEPT_MARGIN_DEGREES = 0.5;
+
     private GoogleMap gMap;
     private MarkerOptions EVSiteMarkerOptions = new MarkerOptions().icon(BitmapDescriptorFactory.fromResource(R.drawable.img_marker_ev));
     private ArrayList<Marker> EVSiteMarkers = new ArrayList<>();
+    // Only touched on the cluster executor
+    private final ChargerResultSet.Builder EVSiteChargers = new ChargerResultSet.Builder();
+    // The chargers as last built on the cluster executor
+    private volatile ChargerResultSet builtEVSiteChargers = ChargerResultSet.EMPTY;
+    private HashMap<String, Marker> EVSiteMarkersByKey = new HashMap<>();
+    private final HashMap<String, BitmapDescriptor> clusterIcons = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile int clusterGeneration;
+    private final ArrayList<EVSiteMarkersObserver> markersObservers = new ArrayList<>();
+    private final ArrayList<EVSiteEvictionObserver> evictionObservers = new ArrayList<>();
     private MarkerOptions currentMarkerOptions = new MarkerOptions().title("My Location").icon(BitmapDescriptorFactory.fromResource(R.drawable.img_marker_location_current));
     private Marker currentMarker;
     private MarkerOptions searchedMarkerOptions = new MarkerOptions().icon(BitmapDescriptorFactory.fromResource(R.drawable.img_marker_location_searched));
     private Marker lastSearchedMarker;
 
+    /**
+     * Callback interface notified when the EV site markers on the map have changed.
+     */
+    public interface EVSiteMarkersObserver {
+        /**
+         * Triggered on the main thread after the EV site markers have been placed.
+         *
+         * @param chargers The chargers shown as a single marker, not as part of a cluster.
+         */
+        void update(List<EVCharger> chargers);
+    }
+
+    /**
+     * Callback interface notified when chargers far from the visible area have been dropped from the map.
+     */
+    public interface EVSiteEvictionObserver {
+        /**
+         * Triggered on the main thread after chargers outside a box have been dropped. The box may cross
+         * the antimeridian, see {@link GeoMath#isWithin}.
+         *
+         * @param south The southern latitude of the area kept.
+         * @param west  The western longitude of the area kept.
+         * @param north The northern latitude of the area kept.
+         * @param east  The eastern longitude of the area kept.
+         */
+        void update(double south, double west, double north, double east);
+    }
+
     /**
      * Constructor to initialize the MyMap class with the provided GoogleMap instance.
      *
@@ -64,6 +131,20 @@ public class MyMap {
         return addCurrentMarker(currentMarkerOptions, latLng);
     }
 
+    /**
+     * Moves the current location marker to a new location without moving the camera,
+     * e.g. for streamed location updates. Adds the marker if there is none yet.
+     *
+     * @param latLng The new latitude and longitude of the device.
+     */
+    public void moveCurrentMarker(LatLng latLng) {
+        if (currentMarker == null) {
+            addCurrentMarker(latLng);
+        } else if (!currentMarker.getPosition().equals(latLng)) {
+            currentMarker.setPosition(latLng);
+        }
+    }
+
     /**
      * Removes the current location marker from the map.
      */
@@ -112,6 +193,7 @@ public class MyMap {
 
     /**
      * Adds a marker for an EV site and stores the marker in a list.
+     * Markers added this way are not keyed or clustered; prefer {@link #addEVSiteMarker(EVCharger)}.
      *
      * @param markerOptions The options for the marker.
      * @param latLng        The latitude and longitude where the marker will be placed.
@@ -134,6 +216,57 @@ public class MyMap {
         return addEVSiteMarker(EVSiteMarkerOptions, latLng);
     }
 
+    /**
+     * Adds an EV charger to the set of chargers shown on the map.
+     * The markers are updated asynchronously, see {@link #addEVSiteMarkers(ChargerResultSet)}.
+     *
+     * @param charger The EV charger to show on the map.
+     */
+    public void addEVSiteMarker(EVCharger charger) {
+        addEVSiteMarkers(Collections.singletonList(charger));
+    }
+
+    /**
+     * Adds EV chargers to the set of chargers shown on the map.
+     * The markers are updated asynchronously, see {@link #addEVSiteMarkers(ChargerResultSet)}.
+     *
+     * @param chargers The EV chargers to show on the map.
+     */
+    public void addEVSiteMarkers(List<EVCharger> chargers) {
+        clusterExecutor.execute(() -> {
+            for (EVCharger charger : chargers) {
+                EVSiteChargers.add(charger);
+            }
+        });
+        refreshEVSiteMarkers();
+    }
+
+    /**
+     * Adds EV chargers to the set of chargers shown on the map. Chargers already in the set are replaced.
+     * The set is kept in columnar form, so chargers away from the visible area cost a few primitive
+     * values each, and {@link EVCharger} objects are only created for chargers near the camera.
+     * The set is only touched, and clustering recomputed, on a background thread, and only the difference
+     * is applied to the map: markers that are still needed are reused and updated, new ones added and
+     * ones no longer needed removed.
+     * Each single charger marker has its {@link EVCharger} as tag, and each cluster marker its
+     * {@link MarkerClusterer.Cluster}.
+     *
+     * @param chargers The EV chargers to show on the map.
+     */
+    public void addEVSiteMarkers(ChargerResultSet chargers) {
+        clusterExecutor.execute(() -> EVSiteChargers.addAll(chargers));
+        refreshEVSiteMarkers();
+    }
+
+    /**
+     * Gets the chargers shown on the map, e.g. to keep them for the next start.
+     *
+     * @return The chargers as of the last marker update, without those dropped far from the visible area.
+     */
+    public ChargerResultSet getEVSiteChargers() {
+        return builtEVSiteChargers;
+    }
+
     /**
      * Removes all EV site markers from the map.
      */
@@ -142,6 +275,223 @@ public class MyMap {
             marker.remove();
         }
         EVSiteMarkers.clear();
+
+        for (Marker marker : EVSiteMarkersByKey.values()) {
+            marker.remove();
+        }
+        EVSiteMarkersByKey.clear();
+
+        // Drop any clustering still in progress.
+        clusterGeneration++;
+        builtEVSiteChargers = ChargerResultSet.EMPTY;
+        clusterExecutor.execute(EVSiteChargers::clear);
+    }
+
+    /**
+     * Adds an observer notified whenever the EV site markers have been placed.
+     *
+     * @param observer The observer to be added.
+     */
+    public void addEVSiteMarkersObserver(EVSiteMarkersObserver observer) {
+        markersObservers.add(observer);
+    }
+
+    /**
+     * Removes an {@link EVSiteMarkersObserver}.
+     *
+     * @param observer The observer to be removed.
+     */
+    public void removeEVSiteMarkersObserver(EVSiteMarkersObserver observer) {
+        markersObservers.remove(observer);
+    }
+
+    /**
+     * Adds an observer notified whenever chargers far from the visible area have been dropped.
+     *
+     * @param observer The observer to be added.
+     */
+    public void addEVSiteEvictionObserver(EVSiteEvictionObserver observer) {
+        evictionObservers.add(observer);
+    }
+
+    /**
+     * Removes an {@link EVSiteEvictionObserver}.
+     *
+     * @param observer The observer to be removed.
+     */
+    public void removeEVSiteEvictionObserver(EVSiteEvictionObserver observer) {
+        evictionObservers.remove(observer);
+    }
+
+    /**
+     * Re-clusters the EV site markers for the current camera position. Should be called when the
+     * camera becomes idle, so clusters follow the zoom level and only the visible area is drawn.
+     */
+    public void onCameraIdle() {
+        refreshEVSiteMarkers();
+    }
+
+    /**
+     * Builds the set of chargers and clusters those near the visible area on a background thread,
+     * then applies the result. Chargers far from the visible area are dropped first if there are too many.
+     */
+    private void refreshEVSiteMarkers() {
+        float zoom = gMap.getCameraPosition().zoom;
+        LatLngBounds bounds = gMap.getProjection().getVisibleRegion().latLngBounds;
+        int generation = ++clusterGeneration;
+
+        clusterExecutor.execute(() -> {
+            // A newer refresh is queued behind this one and will see the same chargers.
+            if (generation != clusterGeneration) {
+                return;
+            }
+
+            double south = bounds.southwest.latitude;
+            double west = bounds.southwest.longitude;
+            double north = bounds.northeast.latitude;
+            double east = bounds.northeast.longitude;
+            double latSpan = north - south;
+            double lonSpan = east >= west ? east - west : east + 360 - west;
+
+            double[] kept = null;
+            if (EVSiteChargers.size() > MAX_EV_SITE_CHARGERS) {
+                double latMargin = Math.max(latSpan, MIN_KEPT_MARGIN_DEGREES);
+                double lonMargin = Math.max(lonSpan, MIN_KEPT_MARGIN_DEGREES);
+                kept = new double[]{south - latMargin, west - lonMargin, north + latMargin, east + lonMargin};
+                Metrics.count("map.chargers_dropped", EVSiteChargers.retainWithin(kept[0], kept[1], kept[2], kept[3]));
+            }
+            ChargerResultSet chargers = EVSiteChargers.build();
+            builtEVSiteChargers = chargers;
+
+            // Only cluster chargers in and just around the visible area, so the marker count stays bounded.
+            double latMargin = latSpan / 2;
+            double lonMargin = lonSpan / 2;
+            ArrayList<EVCharger> nearby = new ArrayList<>();
+            for (int row = 0; row < chargers.size(); row++) {
+                if (GeoMath.isWithin(chargers.getLatitude(row), chargers.getLongitude(row),
+                        south - latMargin, west - lonMargin, north + latMargin, east + lonMargin)) {
+                    nearby.add(chargers.get(row));
+                }
+            }
+
+            Metrics.Timer timer = Metrics.start("map.cluster");
+            List<MarkerClusterer.Cluster> clusters = MarkerClusterer.cluster(nearby, zoom);
+            timer.stop();
+
+            double[] keptArea = kept;
+            mainHandler.post(() -> {
+                if (keptArea != null) {
+                    for (EVSiteEvictionObserver observer : new ArrayList<>(evictionObservers)) {
+                        observer.update(keptArea[0], keptArea[1], keptArea[2], keptArea[3]);
+                    }
+                }
+
+                // A newer refresh has been started since, so this result is out of date.
+                if (generation == clusterGeneration) {
+                    applyEVSiteMarkers(clusters);
+                }
+            });
+        });
+    }
+
+    /**
+     * Applies clustered markers to the map as a diff against the markers already shown.
+     */
+    private void applyEVSiteMarkers(List<MarkerClusterer.Cluster> clusters) {
+        Metrics.Timer timer = Metrics.start("map.apply_markers");
+        HashMap<String, Marker> markers = new HashMap<>();
+        int added = 0;
+
+        for (MarkerClusterer.Cluster cluster : clusters) {
+            Marker marker = EVSiteMarkersByKey.remove(cluster.getKey());
+            int count = cluster.getChargers().size();
+            String title = cluster.isCluster() ? count + " EV chargers" : cluster.getChargers().get(0).getTitle();
+
+            if (marker == null) {
+                MarkerOptions options = cluster.isCluster()
+                        ? new MarkerOptions().icon(clusterIcon(count))
+                        : EVSiteMarkerOptions;
+                marker = gMap.addMarker(options.title(title).position(cluster.getPosition()));
+                if (marker == null) {
+                    continue;
+                }
+                added++;
+            } else {
+                // Reused markers are only touched where the cluster or charger has changed.
+                if (!marker.getPosition().equals(cluster.getPosition())) {
+                    marker.setPosition(cluster.getPosition());
+                }
+                if (!Objects.equals(title, marker.getTitle())) {
+                    marker.setTitle(title);
+                }
+                Object previous = marker.getTag();
+                if (cluster.isCluster() && previous instanceof MarkerClusterer.Cluster
+                        && !clusterLabel(count).equals(clusterLabel(((MarkerClusterer.Cluster) previous).getChargers().size()))) {
+                    marker.setIcon(clusterIcon(count));
+                }
+            }
+
+            marker.setTag(cluster.isCluster() ? cluster : cluster.getChargers().get(0));
+            markers.put(cluster.getKey(), marker);
+        }
+
+        // Whatever is left over is no longer needed.
+        for (Marker marker : EVSiteMarkersByKey.values()) {
+            marker.remove();
+        }
+        Metrics.count("map.markers_added", added);
+        Metrics.count("map.markers_removed", EVSiteMarkersByKey.size());
+        EVSiteMarkersByKey = markers;
+        timer.stop();
+
+        if (!markersObservers.isEmpty()) {
+            ArrayList<EVCharger> shown = new ArrayList<>();
+            for (MarkerClusterer.Cluster cluster : clusters) {
+                if (!cluster.isCluster()) {
+                    shown.add(cluster.getChargers().get(0));
+                }
+            }
+            // Copied, so observers may remove themselves
+            for (EVSiteMarkersObserver observer : new ArrayList<>(markersObservers)) {
+                observer.update(shown);
+            }
+        }
+    }
+
+    /**
+     * Returns an icon showing the number of chargers in a cluster, drawing it on first use.
+     */
+    private BitmapDescriptor clusterIcon(int count) {
+        String label = clusterLabel(count);
+        BitmapDescriptor icon = clusterIcons.get(label);
+        if (icon != null) {
+            return icon;
+        }
+
+        float density = Resources.getSystem().getDisplayMetrics().density;
+        int size = (int) (40 * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(Color.WHITE);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, paint);
+        paint.setColor(CLUSTER_COLOR);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f - 2 * density, paint);
+
+        paint.setColor(Color.WHITE);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(14 * density);
+        paint.setFakeBoldText(true);
+        canvas.drawText(label, size / 2f, size / 2f - (paint.descent() + paint.ascent()) / 2, paint);
+
+        icon = BitmapDescriptorFactory.fromBitmap(bitmap);
+        clusterIcons.put(label, icon);
+        return icon;
+    }
+
+    private static String clusterLabel(int count) {
+        return count < 100 ? String.valueOf(count) : "99+";
     }
 
     /**
@@ -181,6 +531,24 @@ public class MyMap {
         gMap.animateCamera(CameraUpdateFactory.newLatLngZoom(latLng, zoom));
     }
 
+    /**
+     * Moves the camera to a position straight away, without animating.
+     *
+     * @param position The camera position to show.
+     */
+    public void moveTo(CameraPosition position) {
+        gMap.moveCamera(CameraUpdateFactory.newCameraPosition(position));
+    }
+
+    /**
+     * Gets the position of the camera.
+     *
+     * @return The current camera position.
+     */
+    public CameraPosition getCameraPosition() {
+        return gMap.getCameraPosition();
+    }
+
     /**
      * Converts a Location object to a LatLng object.
      *
@@ -0,0 +1,200 @@
+package com.example.assignmentthree;
+
+import java.util.Random;
+
+/**
+ * Timeout, retry and circuit breaker policy for one network endpoint, driven by the outcomes of its requests.
+ *
+ * <ul>
+ *     <li>Timeouts adapt to the latency observed, the way TCP sets its retransmission timeout: a smoothed
+ *     latency plus four times its smoothed deviation, kept between {@value #MIN_TIMEOUT_MILLIS} and
+ *     {@value #MAX_TIMEOUT_MILLIS} ms, and doubled for every retry of the same request.</li>
+ *     <li>Failed requests are retried up to {@value #MAX_RETRIES} times after a random delay of up to
+ *     {@value #BASE_BACKOFF_MILLIS} ms times 2^attempt ("full jitter"), so clients that failed together
+ *     do not retry together.</li>
+ *     <li>After {@value #FAILURE_THRESHOLD} failures in a row the circuit opens and requests are refused
+ *     straight away, so callers fall back to cached or offline data instead of waiting on a dead network.
+ *     After {@value #OPEN_MILLIS} ms a single trial request is let through; the circuit closes again if
+ *     the endpoint answers it, even with an error such as a 4xx, and stays open if it fails.</li>
+ * </ul>
+ *
+ * <p>Times are passed in, so the policy does not depend on a clock. All methods are thread-safe.</p>
+ */
+public class NetworkPolicy {
+    /** Timeout used until a latency has been observed. */
+    public static final long INITIAL_TIMEOUT_MILLIS = 10_000;
+
+    /** Bounds of the adaptive timeout. */
+    public static final long MIN_TIMEOUT_MILLIS = 2_500;
+    public static final long MAX_TIMEOUT_MILLIS = 30_000;
+
+    /** Retries of a failed request, and the backoff before them. */
+    public static final int MAX_RETRIES = 2;
+    public static final long BASE_BACKOFF_MILLIS = 500;
+    public static final long MAX_BACKOFF_MILLIS = 8_000;
+
+    /** Failures in a row that open the circuit, and how long it stays open. */
+    public static final int FAILURE_THRESHOLD = 5;
+    public static final long OPEN_MILLIS = 30_000;
+
+    /**
+     * The state of the circuit breaker.
+     */
+    public enum State {
+        /** Requests are sent normally. */
+        CLOSED,
+        /** Requests are refused until the open period has passed. */
+        OPEN,
+        /** A single trial request is allowed to find out whether the endpoint has recovered. */
+        HALF_OPEN
+    }
+
+    private final Random random;
+
+    // Smoothed latency and its deviation in milliseconds, or -1 before the first sample
+    private double smoothedLatency = -1;
+    private double latencyDeviation;
+
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean open;
+    private boolean trialInFlight;
+
+    /**
+     * Constructor.
+     */
+    public NetworkPolicy() {
+        this(new Random());
+    }
+
+    /**
+     * Constructor with a given source of jitter, e.g. a seeded one for tests.
+     *
+     * @param random The random number generator used for backoff delays.
+     */
+    public NetworkPolicy(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Gets the timeout for an attempt of a request.
+     *
+     * @param attempt The attempt, 0 for the first.
+     * @return The timeout in milliseconds.
+     */
+    public synchronized long timeoutMillis(int attempt) {
+        long timeout = smoothedLatency < 0
+                ? INITIAL_TIMEOUT_MILLIS
+                : Math.round(smoothedLatency + 4 * latencyDeviation);
+        timeout = Math.max(MIN_TIMEOUT_MILLIS, Math.min(MAX_TIMEOUT_MILLIS, timeout));
+        return Math.min(MAX_TIMEOUT_MILLIS, timeout << Math.min(attempt, 4));
+    }
+
+    /**
+     * Gets a random delay before retrying a request.
+     *
+     * @param attempt The attempt that failed, 0 for the first.
+     * @return The delay in milliseconds, from 0 up to the backoff limit for the attempt.
+     */
+    public synchronized long backoffMillis(int attempt) {
+        long limit = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 10));
+        return (long) (random.nextDouble() * limit);
+    }
+
+    /**
+     * Whether a failed attempt should be retried.
+     *
+     * @param attempt The attempt that failed, 0 for the first.
+     * @param nowMillis The current time.
+     * @return True if retries are left and the circuit allows requests.
+     */
+    public synchronized boolean shouldRetry(int attempt, long nowMillis) {
+        return attempt < MAX_RETRIES && getState(nowMillis) == State.CLOSED;
+    }
+
+    /**
+     * Asks to send a request. While the circuit is half open only one request is allowed at a time.
+     *
+     * @param nowMillis The current time.
+     * @return True if the request may be sent, false if it should fail straight away.
+     */
+    public synchronized boolean allowRequest(long nowMillis) {
+        switch (getState(nowMillis)) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records a successful request, closing the circuit and updating the latency estimate.
+     *
+     * @param latencyMillis How long the request took.
+     */
+    public synchronized void recordSuccess(long latencyMillis) {
+        if (smoothedLatency < 0) {
+            smoothedLatency = latencyMillis;
+            latencyDeviation = latencyMillis / 2.0;
+        } else {
+            latencyDeviation = 0.75 * latencyDeviation + 0.25 * Math.abs(smoothedLatency - latencyMillis);
+            smoothedLatency = 0.875 * smoothedLatency + 0.125 * latencyMillis;
+        }
+
+        consecutiveFailures = 0;
+        open = false;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a request that failed because of the network or the server, e.g. a timeout or a 5xx answer.
+     *
+     * @param nowMillis The current time.
+     */
+    public synchronized void recordFailure(long nowMillis) {
+        consecutiveFailures++;
+        if (trialInFlight || consecutiveFailures >= FAILURE_THRESHOLD) {
+            open = true;
+            openedAt = nowMillis;
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a request the endpoint answered with an error that is not its fault, e.g. a 4xx answer or
+     * an unparsable body. The endpoint is reachable, so the circuit closes and the failure count is reset,
+     * but the latency estimate is left alone.
+     */
+    public synchronized void recordAnswered() {
+        consecutiveFailures = 0;
+        open = false;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records that the trial request of a half-open circuit was cancelled before it finished,
+     * so another trial request is let through.
+     */
+    public synchronized void recordCancelled() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Gets the state of the circuit breaker.
+     *
+     * @param nowMillis The current time.
+     * @return The state.
+     */
+    public synchronized State getState(long nowMillis) {
+        if (!open) {
+            return State.CLOSED;
+        }
+        return nowMillis - openedAt >= OPEN_MILLIS ? State.HALF_OPEN : State.OPEN;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.assignmentthree;
+
+/**
+ * Where Open Charge Map requests are sent. Every request URL is built here, so the service can be
+ * swapped for a local stand-in, e.g. a MockWebServer in instrumentation tests, by changing the base URL
+ * before the first request.
+ */
+public final class OcmEndpoint {
+    /** The base URL of the live Open Charge Map API. */
+    public static final String DEFAULT_BASE_URL = "https://api.openchargemap.io/v3/";
+
+    /** The app's Open Charge Map API key. Please replace this with your own key. */
+    public static final String DEFAULT_API_KEY = "788067d4-828a-4b8c-95ee-08f40139f180";
+
+    private static volatile String baseUrl = DEFAULT_BASE_URL;
+    private static volatile String apiKey = DEFAULT_API_KEY;
+
+    private OcmEndpoint() {
+    }
+
+    /**
+     * Sets the base URL requests are sent to.
+     *
+     * @param url The base URL, e.g. "http://localhost:8080/v3/", or null for the live API.
+     *            A missing trailing slash is added.
+     */
+    public static void setBaseUrl(String url) {
+        if (url == null) {
+            baseUrl = DEFAULT_BASE_URL;
+        } else {
+            baseUrl = url.endsWith("/") ? url : url + "/";
+        }
+    }
+
+    /**
+     * Gets the base URL requests are sent to.
+     *
+     * @return The base URL, ending in a slash.
+     */
+    public static String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Sets the API key sent with every request.
+     *
+     * @param key The API key, or null for the app's own key.
+     */
+    public static void setApiKey(String key) {
+        apiKey = key != null ? key : DEFAULT_API_KEY;
+    }
+
+    /**
+     * Builds the URL of a POI query returning JSON.
+     *
+     * @param query The query parameters, e.g. "latitude=-37.78&amp;longitude=175.28&amp;maxresults=50".
+     * @return The full URL, including the API key.
+     */
+    public static String poiUrl(String query) {
+        return baseUrl + "poi/?output=json&" + query + "&key=" + apiKey;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+
+import com.android.volley.Network;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HurlStack;
+
+import java.io.File;
+
+/**
+ * The app-wide network layer for Open Charge Map requests.
+ * A single Volley {@link RequestQueue} is shared by every screen instead of each activity creating its
+ * own, so the dispatcher threads and the HTTP cache are set up once per process, and the platform
+ * HTTP stack can keep reusing its pooled (keep-alive, gzip) connections to api.openchargemap.io.
+ * Responses are kept in a disk HTTP cache that follows the Cache-Control, Expires and ETag headers
+ * sent by Open Charge Map.
+ */
+public class OcmNetwork {
+    /** Number of network dispatcher threads used unless configured otherwise. */
+    public static final int DEFAULT_THREAD_POOL_SIZE = 4;
+
+    private static final String CACHE_DIRECTORY_NAME = "ocm_http";
+    private static final int CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+
+    private static int threadPoolSize = DEFAULT_THREAD_POOL_SIZE;
+    private static OcmNetwork instance;
+
+    private final RequestQueue requestQueue;
+
+    private OcmNetwork(Context context, int threadPoolSize) {
+        File cacheDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY_NAME);
+        Network network = new BasicNetwork(new HurlStack());
+
+        requestQueue = new RequestQueue(new DiskBasedCache(cacheDirectory, CACHE_SIZE_BYTES), network, threadPoolSize);
+        requestQueue.start();
+    }
+
+    /**
+     * Returns the shared network layer, creating and starting its request queue on first use.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared {@code OcmNetwork}.
+     */
+    public static synchronized OcmNetwork getInstance(Context context) {
+        if (instance == null) {
+            instance = new OcmNetwork(context.getApplicationContext(), threadPoolSize);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the shared network layer on a background thread, if it does not exist yet, so the first
+     * request does not pay for starting the dispatcher threads and the disk cache. Meant to be called
+     * once startup has finished, since nothing needs the network before the first search.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static void warmUp(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        new Thread(() -> getInstance(applicationContext), "ocm-network-init").start();
+    }
+
+    /**
+     * Sets the number of network dispatcher threads. Must be called before the first
+     * {@link #getInstance(Context)}, since the queue cannot be resized once started.
+     *
+     * @param size The number of threads, at least 1.
+     * @throws IllegalArgumentException if the size is less than 1.
+     * @throws IllegalStateException if the request queue has already been created.
+     */
+    public static synchronized void setThreadPoolSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Thread pool size must be at least 1");
+        }
+        if (instance != null) {
+            throw new IllegalStateException("The request queue has already been created");
+        }
+        threadPoolSize = size;
+    }
+
+    /**
+     * Gets the shared request queue.
+     *
+     * @return The request queue used for all Open Charge Map requests.
+     */
+    public RequestQueue getRequestQueue() {
+        return requestQueue;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for Open Charge Map POI responses.
+ * Instead of building the whole response as a JSON tree, it walks the tokens once and picks out
+ * only the fields an {@link EVCharger} needs, skipping large unused subtrees such as connections,
+ * media items and user comments without materialising them.
+ */
+public final class OcmPoiParser {
+
+    private OcmPoiParser() {
+    }
+
+    /**
+     * Handler receiving each charger as soon as it has been read, see {@link #parse(Reader, ChargerHandler)}.
+     */
+    public interface ChargerHandler {
+        /**
+         * Triggered on the parsing thread for every POI with coordinates, in the order of the response.
+         *
+         * @param charger The charger read.
+         * @throws IOException if the charger cannot be handled, which stops the parsing.
+         */
+        void onCharger(EVCharger charger) throws IOException;
+    }
+
+    /**
+     * Parses an Open Charge Map POI array.
+     *
+     * @param in The reader supplying the JSON response.
+     * @return The chargers in the order they appear in the response. POIs without coordinates are left out.
+     * @throws IOException If the response is not valid JSON or cannot be read.
+     */
+    public static List<EVCharger> parse(Reader in) throws IOException {
+        ArrayList<EVCharger> chargers = new ArrayList<>();
+        parse(in, chargers::add);
+        return chargers;
+    }
+
+    /**
+     * Parses an Open Charge Map POI array, passing each charger on as it is read rather than collecting
+     * them, so a response of any size can be processed with constant memory.
+     *
+     * @param in      The reader supplying the JSON response.
+     * @param handler The handler receiving the chargers. POIs without coordinates are left out.
+     * @return The number of chargers passed to the handler.
+     * @throws IOException If the response is not valid JSON or cannot be read, or the handler fails.
+     */
+    public static int parse(Reader in, ChargerHandler handler) throws IOException {
+        int count = 0;
+
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                EVCharger charger = readCharger(reader);
+                if (charger != null) {
+                    handler.onCharger(charger);
+                    count++;
+                }
+            }
+            reader.endArray();
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads a single POI object.
+     *
+     * @return The charger, or null if the POI has no address information or coordinates.
+     */
+    private static EVCharger readCharger(JsonReader reader) throws IOException {
+        int id = EVCharger.UNKNOWN_ID;
+        int points = 1;
+        String generalComments = null;
+        String description = null;
+        String usageCost = null;
+        AddressInfo addressInfo = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "ID":
+                    id = nextInt(reader, EVCharger.UNKNOWN_ID);
+                    break;
+                case "NumberOfPoints":
+                    points = nextInt(reader, 1);
+                    break;
+                case "GeneralComments":
+                    generalComments = nextString(reader);
+                    break;
+                case "Description":
+                    description = nextString(reader);
+                    break;
+                case "UsageCost":
+                    usageCost = nextString(reader);
+                    break;
+                case "AddressInfo":
+                    addressInfo = readAddressInfo(reader);
+                    break;
+                default:
+                    // Connections, media, comments and so on are never shown, so skip them unparsed.
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (addressInfo == null || addressInfo.latitude == null || addressInfo.longitude == null) {
+            return null;
+        }
+
+        // Get description from "GeneralComments" or "Description", fallback to "Description not available"
+        if (generalComments != null) {
+            description = generalComments;
+        }
+        if (description == null || description.isEmpty()) {
+            description = "Description not available";
+        }
+
+        String address = nonNull(addressInfo.addressLine1) + ", " + nonNull(addressInfo.town);
+        Tariff tariff = TariffParser.parse(usageCost);
+        LatLng location = new LatLng(addressInfo.latitude, addressInfo.longitude);
+
+        return new EVCharger(id, nonNull(addressInfo.title), description, address, points, tariff, location);
+    }
+
+    /**
+     * The fields of an "AddressInfo" object that are used.
+     */
+    private static class AddressInfo {
+        String title;
+        String addressLine1;
+        String town;
+        Double latitude;
+        Double longitude;
+    }
+
+    private static AddressInfo readAddressInfo(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        AddressInfo info = new AddressInfo();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "Title":
+                    info.title = nextString(reader);
+                    break;
+                case "AddressLine1":
+                    info.addressLine1 = nextString(reader);
+                    break;
+                case "Town":
+                    info.town = nextString(reader);
+                    break;
+                case "Latitude":
+                    info.latitude = nextDouble(reader);
+                    break;
+                case "Longitude":
+                    info.longitude = nextDouble(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return info;
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static Double nextDouble(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return null;
+        }
+        return reader.nextDouble();
+    }
+
+    private static int nextInt(JsonReader reader, int fallback) throws IOException {
+        if (reader.peek() != JsonToken.NUMBER) {
+            reader.skipValue();
+            return fallback;
+        }
+        return reader.nextInt();
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
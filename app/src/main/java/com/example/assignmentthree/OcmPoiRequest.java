@@ -0,0 +1,111 @@
+package com.example.assignmentthree;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A Volley request for Open Charge Map POIs.
+ * The response is stream-parsed by {@link OcmPoiParser} on Volley's network thread, so only the
+ * finished list of chargers is handed to the main thread.
+ *
+ * <p>The response is requested gzip-compressed and decompressed while it is parsed. Asking for gzip
+ * explicitly turns off the platform's transparent decompression, so the compressed size is known:
+ * it is recorded in {@link Metrics} as "ocm.wire_bytes", the decompressed size as "ocm.payload_bytes"
+ * and the parse time as "ocm.parse".</p>
+ */
+public class OcmPoiRequest extends Request<List<EVCharger>> {
+    private final Response.Listener<List<EVCharger>> listener;
+
+    /**
+     * Constructor.
+     *
+     * @param url           The Open Charge Map POI URL to request.
+     * @param listener      The listener receiving the parsed chargers.
+     * @param errorListener The listener receiving network or parse errors.
+     */
+    public OcmPoiRequest(String url, Response.Listener<List<EVCharger>> listener, Response.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        this.listener = listener;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return Collections.singletonMap("Accept-Encoding", "gzip");
+    }
+
+    @Override
+    protected Response<List<EVCharger>> parseNetworkResponse(NetworkResponse response) {
+        Charset charset = Charset.forName(HttpHeaderParser.parseCharset(response.headers, "UTF-8"));
+        Metrics.record("ocm.wire_bytes", response.data.length);
+
+        Metrics.Timer timer = Metrics.start("ocm.parse");
+        try {
+            InputStream in = new ByteArrayInputStream(response.data);
+            String encoding = response.headers != null ? response.headers.get("Content-Encoding") : null;
+            if ("gzip".equalsIgnoreCase(encoding)) {
+                in = new GZIPInputStream(in);
+            }
+            CountingInputStream payload = new CountingInputStream(in);
+
+            List<EVCharger> chargers;
+            try (InputStreamReader reader = new InputStreamReader(payload, charset)) {
+                chargers = OcmPoiParser.parse(reader);
+            }
+            Metrics.record("ocm.payload_bytes", payload.count);
+            return Response.success(chargers, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("ocm.parse_errors");
+            return Response.error(new ParseError(e));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Override
+    protected void deliverResponse(List<EVCharger> response) {
+        listener.onResponse(response);
+    }
+
+    /**
+     * Counts the bytes read through it, to measure the decompressed payload.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Builds Open Charge Map POI query URLs with the compact projection the app needs.
+ *
+ * <p>Every query asks for {@code compact=true} (reference data such as operators and connection types
+ * is left out rather than repeated in full for every POI), {@code verbose=false} (null and empty fields
+ * are left out) and {@code includecomments=false} (no user comments or media). {@link OcmPoiParser}
+ * only reads the POI's id, number of points, description, usage cost and address, none of which
+ * the compact projection drops. Coordinates are rounded to about a metre, so queries for the same
+ * place always build the same URL and can share a request in the {@link OcmRequestCoordinator}.</p>
+ *
+ * <pre>
+ * String url = OcmQuery.near(latLng).maxResults(50).toUrl();
+ * </pre>
+ */
+public final class OcmQuery {
+    /** The projection added to every query. */
+    public static final String PROJECTION = "compact=true&verbose=false&includecomments=false";
+
+    private final StringBuilder query = new StringBuilder();
+
+    private OcmQuery(String area) {
+        query.append(area);
+    }
+
+    /**
+     * Starts a query for the POIs nearest a location.
+     *
+     * @param location The location to search around.
+     * @return The query.
+     */
+    public static OcmQuery near(LatLng location) {
+        return new OcmQuery(String.format(Locale.US, "latitude=%.5f&longitude=%.5f",
+                location.latitude, location.longitude));
+    }
+
+    /**
+     * Starts a query for the POIs inside a bounding box.
+     *
+     * @param south The southern latitude.
+     * @param west  The western longitude.
+     * @param north The northern latitude.
+     * @param east  The eastern longitude.
+     * @return The query.
+     */
+    public static OcmQuery boundingBox(double south, double west, double north, double east) {
+        return new OcmQuery(String.format(Locale.US, "boundingbox=(%.5f,%.5f),(%.5f,%.5f)",
+                north, west, south, east));
+    }
+
+    /**
+     * Limits the query to POIs within a distance of its location.
+     *
+     * @param kilometres The distance in kilometres.
+     * @return This query.
+     */
+    public OcmQuery within(double kilometres) {
+        query.append(String.format(Locale.US, "&distance=%.1f&distanceunit=KM", kilometres));
+        return this;
+    }
+
+    /**
+     * Limits the number of POIs returned.
+     *
+     * @param maxResults The most POIs to return.
+     * @return This query.
+     */
+    public OcmQuery maxResults(int maxResults) {
+        query.append("&maxresults=").append(maxResults);
+        return this;
+    }
+
+    /**
+     * Limits the query to POIs added or changed since a time, to download a delta of an area
+     * that is already stored.
+     *
+     * @param timeMillis The time in milliseconds since the epoch.
+     * @return This query.
+     */
+    public OcmQuery modifiedSince(long timeMillis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        query.append("&modifiedsince=").append(format.format(new Date(timeMillis)));
+        return this;
+    }
+
+    /**
+     * Builds the query parameters, without the base URL or API key.
+     *
+     * @return The query parameters, including the projection.
+     */
+    public String toQueryString() {
+        return query + "&" + PROJECTION;
+    }
+
+    /**
+     * Builds the full URL of the query.
+     *
+     * @return The URL, sent to the current {@link OcmEndpoint}.
+     */
+    public String toUrl() {
+        return OcmEndpoint.poiUrl(toQueryString());
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Coordinates Open Charge Map requests shared by {@link Searching} and {@link DetailActivity}.
+ * Requests for the same URL made while one is already in flight are attached to that call instead of
+ * issuing a new one, and the result is fanned out to every waiter. Viewport tiles are snapped to a grid
+ * before their URL is built, so requests for spatially overlapping areas resolve to the same URL and
+ * coalesce too. Each waiter gets a {@link Ticket} it can cancel; the network call itself is
+ * only cancelled once nobody is waiting for it any more.
+ *
+ * <p>All methods must be called on the main thread, which is also where results are delivered.
+ * The shared coordinator only creates the {@link OcmNetwork} request queue for its first request,
+ * so getting it during startup costs nothing.</p>
+ *
+ * <p>Every endpoint has a {@link NetworkPolicy}. Requests get its adaptive timeout, and timeouts,
+ * lost connections and 5xx or 429 answers are retried here with a jittered backoff; Volley's own
+ * retries are switched off because they resend straight away. All OCM requests are idempotent GETs,
+ * so retrying them is safe. While an endpoint's circuit is open, requests fail straight away with a
+ * {@link CircuitOpenError} so callers can fall back to cached or offline chargers.</p>
+ */
+public class OcmRequestCoordinator {
+    private static OcmRequestCoordinator instance;
+
+    private final Context context;
+    private RequestQueue requestQueue;
+    private final HashMap<String, InFlight> inFlight = new HashMap<>();
+    private final HashMap<String, NetworkPolicy> policies = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Observer interface told when a failed request is about to be retried.
+     */
+    public interface RetryObserver {
+        /**
+         * Triggered on the main thread when a request failed and will be sent again.
+         *
+         * @param attempt     The retry about to be made, 1 for the first.
+         * @param delayMillis The delay before it is sent.
+         */
+        void update(int attempt, long delayMillis);
+    }
+
+    /**
+     * The error given to requests refused because their endpoint's circuit is open.
+     */
+    public static class CircuitOpenError extends VolleyError {
+        private CircuitOpenError(String endpoint) {
+            super("Circuit open for " + endpoint);
+        }
+    }
+
+    /**
+     * A single waiter for a coalesced request.
+     */
+    public class Ticket {
+        private final String url;
+        private final Response.Listener<List<EVCharger>> listener;
+        private final Response.ErrorListener errorListener;
+        private final RetryObserver retryObserver;
+
+        private Ticket(String url, Response.Listener<List<EVCharger>> listener, Response.ErrorListener errorListener,
+                       RetryObserver retryObserver) {
+            this.url = url;
+            this.listener = listener;
+            this.errorListener = errorListener;
+            this.retryObserver = retryObserver;
+        }
+
+        /**
+         * Stops this waiter from receiving the result. The request is cancelled if no other waiter remains.
+         * Does nothing if the result has already been delivered.
+         */
+        public void cancel() {
+            InFlight call = inFlight.get(url);
+            if (call == null || !call.tickets.remove(this)) {
+                return;
+            }
+
+            if (call.tickets.isEmpty()) {
+                if (call.request != null) {
+                    call.request.cancel();
+                }
+                if (call.trial) {
+                    // Lets a half-open circuit try again, as this trial will never finish
+                    call.policy.recordCancelled();
+                }
+                if (call.retry != null) {
+                    mainHandler.removeCallbacks(call.retry);
+                }
+                inFlight.remove(url);
+            }
+        }
+    }
+
+    /**
+     * A request on the network together with everyone waiting for it.
+     */
+    private static class InFlight {
+        private final ArrayList<Ticket> tickets = new ArrayList<>();
+        private final NetworkPolicy policy;
+        private OcmPoiRequest request;
+        // Whether the attempt on the network is the trial request of a half-open circuit
+        private boolean trial;
+        private int attempt;
+        private long sentAt;
+        private Runnable retry;
+
+        private InFlight(NetworkPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param requestQueue The queue the requests are sent through, normally the shared {@link OcmNetwork} queue.
+     */
+    public OcmRequestCoordinator(RequestQueue requestQueue) {
+        this.context = null;
+        this.requestQueue = requestQueue;
+    }
+
+    private OcmRequestCoordinator(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the shared coordinator, creating it on first use.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared {@code OcmRequestCoordinator}.
+     */
+    public static synchronized OcmRequestCoordinator getInstance(Context context) {
+        if (instance == null) {
+            instance = new OcmRequestCoordinator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Requests the chargers for a URL, joining an identical request if one is already in flight.
+     *
+     * @param url           The Open Charge Map URL.
+     * @param listener      The listener receiving the parsed chargers on the main thread.
+     * @param errorListener The listener receiving any error on the main thread.
+     * @return A ticket that can be used to stop waiting for the result.
+     */
+    public Ticket fetch(String url, Response.Listener<List<EVCharger>> listener, Response.ErrorListener errorListener) {
+        return fetch(url, listener, errorListener, null);
+    }
+
+    /**
+     * Requests the chargers for a URL, joining an identical request if one is already in flight,
+     * and tells the caller about retries.
+     *
+     * @param url           The Open Charge Map URL.
+     * @param listener      The listener receiving the parsed chargers on the main thread.
+     * @param errorListener The listener receiving the error on the main thread once no retries are left.
+     * @param retryObserver The observer told about each retry, or null.
+     * @return A ticket that can be used to stop waiting for the result.
+     */
+    public Ticket fetch(String url, Response.Listener<List<EVCharger>> listener, Response.ErrorListener errorListener,
+                        RetryObserver retryObserver) {
+        Ticket ticket = new Ticket(url, listener, errorListener, retryObserver);
+
+        InFlight call = inFlight.get(url);
+        if (call != null) {
+            call.tickets.add(ticket);
+            return ticket;
+        }
+
+        InFlight newCall = new InFlight(getPolicy(url));
+        newCall.tickets.add(ticket);
+        inFlight.put(url, newCall);
+
+        if (allowRequest(newCall)) {
+            send(url, newCall);
+        } else {
+            refuse(url, newCall);
+        }
+        return ticket;
+    }
+
+    /**
+     * Gets the policy of the endpoint a URL belongs to, creating it on first use.
+     *
+     * @param url An Open Charge Map URL.
+     * @return The policy shared by all URLs with the same host and path.
+     */
+    public NetworkPolicy getPolicy(String url) {
+        Uri uri = Uri.parse(url);
+        String endpoint = uri.getHost() + uri.getPath();
+        NetworkPolicy policy = policies.get(endpoint);
+        if (policy == null) {
+            policy = new NetworkPolicy();
+            policies.put(endpoint, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * Asks the call's policy to send an attempt, remembering whether it is a half-open circuit's trial request.
+     */
+    private static boolean allowRequest(InFlight call) {
+        long now = SystemClock.elapsedRealtime();
+        call.trial = call.policy.getState(now) == NetworkPolicy.State.HALF_OPEN;
+        boolean allowed = call.policy.allowRequest(now);
+        call.trial &= allowed;
+        return allowed;
+    }
+
+    /**
+     * Sends an attempt of a call, with the timeout its policy gives that attempt.
+     */
+    private void send(String url, InFlight call) {
+        call.retry = null;
+        call.sentAt = SystemClock.elapsedRealtime();
+        call.request = new OcmPoiRequest(url,
+                response -> {
+                    call.trial = false;
+                    call.policy.recordSuccess(SystemClock.elapsedRealtime() - call.sentAt);
+                    inFlight.remove(url);
+                    for (Ticket waiter : call.tickets) {
+                        waiter.listener.onResponse(response);
+                    }
+                },
+                error -> onError(url, call, error));
+
+        // Retries are scheduled in onError, with a backoff Volley does not have
+        call.request.setRetryPolicy(new DefaultRetryPolicy((int) call.policy.timeoutMillis(call.attempt), 0, 0f));
+        requestQueue().add(call.request);
+    }
+
+    /**
+     * Retries a failed attempt after a backoff if the error is worth retrying, otherwise fails the call.
+     */
+    private void onError(String url, InFlight call, VolleyError error) {
+        long now = SystemClock.elapsedRealtime();
+        call.trial = false;
+        if (!isRetriable(error)) {
+            // The endpoint answered, so it is reachable, but the answer says nothing about its latency
+            call.policy.recordAnswered();
+            fail(url, call, error);
+            return;
+        }
+
+        call.policy.recordFailure(now);
+        if (!call.policy.shouldRetry(call.attempt, now)) {
+            fail(url, call, error);
+            return;
+        }
+
+        long delay = call.policy.backoffMillis(call.attempt);
+        call.attempt++;
+        call.retry = () -> {
+            // Other requests may have opened the circuit during the backoff
+            if (allowRequest(call)) {
+                send(url, call);
+            } else {
+                refuse(url, call);
+            }
+        };
+        mainHandler.postDelayed(call.retry, delay);
+        Metrics.count("network.retries");
+
+        // Copy, as an observer may cancel its ticket
+        for (Ticket waiter : new ArrayList<>(call.tickets)) {
+            if (waiter.retryObserver != null) {
+                waiter.retryObserver.update(call.attempt, delay);
+            }
+        }
+    }
+
+    /**
+     * Fails a call its circuit will not let through. The error is posted rather than delivered straight
+     * away, so callers always get their ticket before the result.
+     */
+    private void refuse(String url, InFlight call) {
+        Metrics.count("network.circuit_open");
+        Uri uri = Uri.parse(url);
+        CircuitOpenError error = new CircuitOpenError(uri.getHost() + uri.getPath());
+        call.request = null;
+        call.retry = () -> fail(url, call, error);
+        mainHandler.post(call.retry);
+    }
+
+    private void fail(String url, InFlight call, VolleyError error) {
+        inFlight.remove(url);
+        for (Ticket waiter : call.tickets) {
+            waiter.errorListener.onErrorResponse(error);
+        }
+    }
+
+    /**
+     * Whether an error is likely to go away if the request is sent again: timeouts, lost connections,
+     * server errors and rate limiting.
+     */
+    private static boolean isRetriable(VolleyError error) {
+        if (error instanceof TimeoutError || error instanceof NetworkError) {
+            return true;
+        }
+        if (error instanceof ServerError) {
+            NetworkResponse response = error.networkResponse;
+            return response == null || response.statusCode >= 500 || response.statusCode == 429;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the request queue, creating the shared one on first use.
+     */
+    private RequestQueue requestQueue() {
+        if (requestQueue == null) {
+            requestQueue = OcmNetwork.getInstance(context).getRequestQueue();
+        }
+        return requestQueue;
+    }
+
+    /**
+     * Gets the number of distinct requests currently on the network.
+     *
+     * @return The number of in-flight requests.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
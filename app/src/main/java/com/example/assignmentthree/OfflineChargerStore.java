@@ -0,0 +1,539 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A read-only set of chargers stored in a compact binary file and read through a {@link MappedByteBuffer},
+ * so a whole region can be queried offline without loading it onto the heap.
+ *
+ * <p>The file starts with a 16 byte header (magic, version, row count, string table offset), followed by
+ * one fixed-width row per charger, sorted by latitude:</p>
+ * <pre>
+ * int id | int latitude (microdegrees) | int longitude (microdegrees) | int points |
+ * float per kWh | float per minute | float flat fee | int flags (1 = free) |
+ * int title offset | int description offset | int address offset | int currency offset
+ * </pre>
+ * <p>and a string table of length-prefixed UTF-8 strings, each stored once however many rows use it.
+ * Queries only touch the fixed-width columns; {@link EVCharger} objects are created just for the rows returned.</p>
+ *
+ * <p>Files are written by a {@link Writer}, which takes chargers one at a time and sorts the rows with an
+ * external merge sort through temporary files, so writing a store of any size needs a fixed amount of heap.</p>
+ */
+public class OfflineChargerStore {
+    private static final int MAGIC = 0x4F434D31; // "OCM1"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int ROW_SIZE = 48;
+
+    private static final int ID = 0;
+    private static final int LATITUDE = 4;
+    private static final int LONGITUDE = 8;
+    private static final int POINTS = 12;
+    private static final int PER_KWH = 16;
+    private static final int PER_MINUTE = 20;
+    private static final int FLAT_FEE = 24;
+    private static final int FLAGS = 28;
+    private static final int TITLE = 32;
+    private static final int DESCRIPTION = 36;
+    private static final int ADDRESS = 40;
+    private static final int CURRENCY = 44;
+
+    private static final int FLAG_FREE = 1;
+
+    private static final double MICRODEGREES = 1e6;
+
+    /** Radius of the first search ring; it grows until enough chargers are found. */
+    private static final double INITIAL_RADIUS_METERS = 5000;
+
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int stringTableOffset;
+
+    private OfflineChargerStore(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an offline charger file");
+        }
+
+        this.buffer = buffer;
+        this.rowCount = buffer.getInt(8);
+        this.stringTableOffset = buffer.getInt(12);
+
+        if ((long) HEADER_SIZE + (long) rowCount * ROW_SIZE > stringTableOffset || stringTableOffset > buffer.capacity()) {
+            throw new IOException("Offline charger file is truncated");
+        }
+    }
+
+    /**
+     * Maps an offline charger file into memory. The mapping stays valid after the file channel is closed.
+     *
+     * @param file The file written by {@link #write(List, File)}.
+     * @return The store reading from the file.
+     * @throws IOException if the file cannot be read or is not an offline charger file.
+     */
+    public static OfflineChargerStore open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OfflineChargerStore(buffer);
+        }
+    }
+
+    /**
+     * Writes chargers to an offline charger file, replacing it if it exists.
+     *
+     * @param chargers The chargers to store. The list is not modified.
+     * @param file     The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(List<EVCharger> chargers, File file) throws IOException {
+        try (Writer writer = new Writer(file)) {
+            for (EVCharger charger : chargers) {
+                writer.add(charger);
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Gets the number of chargers in the store.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Finds the chargers nearest to a location, up to a maximum distance.
+     * Only the fixed-width columns of rows in the latitude band around the location are read;
+     * chargers are created for the returned rows only.
+     *
+     * @param latLng            The location to search around.
+     * @param k                 The maximum number of chargers to return.
+     * @param maxDistanceMeters The maximum distance of a returned charger from the location.
+     * @return Up to {@code k} chargers, nearest first.
+     */
+    public List<EVCharger> nearest(LatLng latLng, int k, double maxDistanceMeters) {
+        if (k <= 0 || rowCount == 0) {
+            return new ArrayList<>();
+        }
+
+        // Best rows so far, kept sorted by distance. k is small, so insertion beats a heap here.
+        int[] bestRows = new int[k];
+        double[] bestDistances = new double[k];
+        int found = 0;
+
+        double radius = Math.min(INITIAL_RADIUS_METERS, maxDistanceMeters);
+        while (true) {
+            found = 0;
+            double latitudeDegrees = radius / GeoMath.METERS_PER_DEGREE;
+            double cos = Math.cos(Math.toRadians(latLng.latitude));
+            double longitudeDegrees = cos > 1e-6 ? Math.min(180, latitudeDegrees / cos) : 180;
+
+            int from = lowerBound(microdegrees(latLng.latitude - latitudeDegrees));
+            int to = lowerBound(microdegrees(latLng.latitude + latitudeDegrees) + 1);
+
+            for (int row = from; row < to; row++) {
+                int base = HEADER_SIZE + row * ROW_SIZE;
+                double longitude = buffer.getInt(base + LONGITUDE) / MICRODEGREES;
+
+                double longitudeDelta = Math.abs(longitude - latLng.longitude);
+                if (Math.min(longitudeDelta, 360 - longitudeDelta) > longitudeDegrees) {
+                    continue;
+                }
+
+                double latitude = buffer.getInt(base + LATITUDE) / MICRODEGREES;
+                double distance = GeoMath.distanceMeters(latLng.latitude, latLng.longitude, latitude, longitude);
+                if (distance > radius || (found == k && distance >= bestDistances[k - 1])) {
+                    continue;
+                }
+
+                int position = found < k ? found++ : k - 1;
+                while (position > 0 && bestDistances[position - 1] > distance) {
+                    bestRows[position] = bestRows[position - 1];
+                    bestDistances[position] = bestDistances[position - 1];
+                    position--;
+                }
+                bestRows[position] = row;
+                bestDistances[position] = distance;
+            }
+
+            // Every charger within the radius has been seen, so the result is exact once it is full.
+            if (found == k || radius >= maxDistanceMeters) {
+                break;
+            }
+            radius = Math.min(radius * 4, maxDistanceMeters);
+        }
+
+        ArrayList<EVCharger> chargers = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            chargers.add(charger(bestRows[i]));
+        }
+        return chargers;
+    }
+
+    /**
+     * Creates the charger stored in a row.
+     *
+     * @param row The row, from 0 to {@link #size()} - 1.
+     * @return The charger.
+     */
+    public EVCharger charger(int row) {
+        int base = HEADER_SIZE + row * ROW_SIZE;
+        LatLng location = new LatLng(buffer.getInt(base + LATITUDE) / MICRODEGREES, buffer.getInt(base + LONGITUDE) / MICRODEGREES);
+        String currency = string(buffer.getInt(base + CURRENCY));
+        Tariff tariff = new Tariff(
+                buffer.getFloat(base + PER_KWH),
+                buffer.getFloat(base + PER_MINUTE),
+                buffer.getFloat(base + FLAT_FEE),
+                currency.isEmpty() ? null : currency,
+                (buffer.getInt(base + FLAGS) & FLAG_FREE) != 0);
+        return new EVCharger(
+                buffer.getInt(base + ID),
+                string(buffer.getInt(base + TITLE)),
+                string(buffer.getInt(base + DESCRIPTION)),
+                string(buffer.getInt(base + ADDRESS)),
+                buffer.getInt(base + POINTS),
+                tariff,
+                location);
+    }
+
+    /**
+     * Returns the first row whose latitude is at least the given value.
+     */
+    private int lowerBound(int latitude) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(HEADER_SIZE + middle * ROW_SIZE + LATITUDE) < latitude) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private String string(int offset) {
+        int position = stringTableOffset + offset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+
+        // Read through a duplicate so concurrent queries do not share a buffer position.
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int microdegrees(double degrees) {
+        return (int) Math.round(degrees * MICRODEGREES);
+    }
+
+    /**
+     * Writes an offline charger file from chargers added one at a time, e.g. straight from
+     * {@link OcmPoiParser#parse(java.io.Reader, OcmPoiParser.ChargerHandler)}.
+     *
+     * <p>Rows are collected in a fixed-size chunk, which is sorted by latitude and appended to a temporary
+     * run file whenever it is full. {@link #finish()} merges the runs, at most {@value #MAX_FAN_IN} at a time,
+     * until one sorted run is left, and writes the header, that run and the string table to the file.
+     * Strings are appended to a temporary string table as they are seen; the most recently used ones are
+     * remembered, so the few strings shared by many rows are stored once without keeping every string
+     * on the heap. Temporary files are deleted on {@link #close()}.</p>
+     */
+    public static final class Writer implements Closeable {
+        /** Rows sorted in memory at a time. */
+        static final int CHUNK_ROWS = 16_384;
+
+        /** Most runs merged at a time. */
+        static final int MAX_FAN_IN = 32;
+
+        private static final int STRING_CACHE_SIZE = 4096;
+        private static final int BUFFER_SIZE = 8192;
+
+        private final File file;
+        private final File strings;
+        private final File[] runFiles;
+        private final int maxFanIn;
+        private final byte[] chunk;
+        private final ByteBuffer chunkBuffer;
+        private final DataOutputStream stringsOut;
+        private final DataOutputStream runsOut;
+        private int chunkRows;
+        private int size;
+
+        // Rows in each run of the current run file, in file order
+        private ArrayList<Integer> runs = new ArrayList<>();
+
+        private final LinkedHashMap<String, Integer> recentStrings = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > STRING_CACHE_SIZE;
+            }
+        };
+
+        /**
+         * Constructor.
+         *
+         * @param file The file to write once {@link #finish()} is called.
+         * @throws IOException if the temporary files cannot be created.
+         */
+        public Writer(File file) throws IOException {
+            this(file, CHUNK_ROWS, MAX_FAN_IN);
+        }
+
+        Writer(File file, int chunkRows, int maxFanIn) throws IOException {
+            this.file = file;
+            this.strings = new File(file.getPath() + ".strings");
+            this.runFiles = new File[]{new File(file.getPath() + ".runs"), new File(file.getPath() + ".merge")};
+            this.maxFanIn = maxFanIn;
+            this.chunk = new byte[chunkRows * ROW_SIZE];
+            this.chunkBuffer = ByteBuffer.wrap(chunk);
+            this.stringsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(strings)));
+            this.runsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFiles[0])));
+        }
+
+        /**
+         * Adds a charger.
+         *
+         * @param charger The charger to store.
+         * @throws IOException if a temporary file cannot be written.
+         */
+        public void add(EVCharger charger) throws IOException {
+            if ((long) HEADER_SIZE + (long) (size + 1) * ROW_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("Too many chargers for an offline charger file");
+            }
+
+            Tariff tariff = charger.getTariff();
+            String currency = tariff.getCurrency();
+            int base = chunkRows * ROW_SIZE;
+            chunkBuffer.putInt(base + ID, charger.getId());
+            chunkBuffer.putInt(base + LATITUDE, microdegrees(charger.getLocation().latitude));
+            chunkBuffer.putInt(base + LONGITUDE, microdegrees(charger.getLocation().longitude));
+            chunkBuffer.putInt(base + POINTS, charger.getPoints());
+            chunkBuffer.putFloat(base + PER_KWH, (float) tariff.getPerKwh());
+            chunkBuffer.putFloat(base + PER_MINUTE, (float) tariff.getPerMinute());
+            chunkBuffer.putFloat(base + FLAT_FEE, (float) tariff.getFlatFee());
+            chunkBuffer.putInt(base + FLAGS, tariff.isFree() ? FLAG_FREE : 0);
+            chunkBuffer.putInt(base + TITLE, stringOffset(charger.getTitle()));
+            chunkBuffer.putInt(base + DESCRIPTION, stringOffset(charger.getDescription()));
+            chunkBuffer.putInt(base + ADDRESS, stringOffset(charger.getAddress()));
+            chunkBuffer.putInt(base + CURRENCY, stringOffset(currency != null ? currency : ""));
+
+            size++;
+            if (++chunkRows * ROW_SIZE == chunk.length) {
+                flushChunk();
+            }
+        }
+
+        /**
+         * Gets the number of chargers added.
+         *
+         * @return The number of rows.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Sorts the rows and writes the offline charger file, replacing it if it exists.
+         *
+         * @throws IOException if the file or a temporary file cannot be written.
+         */
+        public void finish() throws IOException {
+            flushChunk();
+            runsOut.close();
+            stringsOut.close();
+
+            File sorted = mergeRuns();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeInt(size);
+                header.writeInt(HEADER_SIZE + size * ROW_SIZE);
+                copy(sorted, out);
+                copy(strings, out);
+            }
+        }
+
+        /**
+         * Deletes the temporary files.
+         */
+        @Override
+        public void close() throws IOException {
+            runsOut.close();
+            stringsOut.close();
+            //noinspection ResultOfMethodCallIgnored
+            strings.delete();
+            for (File runFile : runFiles) {
+                //noinspection ResultOfMethodCallIgnored
+                runFile.delete();
+            }
+        }
+
+        private int stringOffset(String value) throws IOException {
+            Integer offset = recentStrings.get(value);
+            if (offset == null) {
+                offset = stringsOut.size();
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                stringsOut.writeInt(bytes.length);
+                stringsOut.write(bytes);
+                recentStrings.put(value, offset);
+            }
+            return offset;
+        }
+
+        /**
+         * Sorts the rows of the chunk by latitude and appends them to the run file as a new run.
+         */
+        private void flushChunk() throws IOException {
+            if (chunkRows == 0) {
+                return;
+            }
+
+            // Latitude in the high half and row in the low half, so sorting the keys sorts the rows stably.
+            long[] keys = new long[chunkRows];
+            for (int row = 0; row < chunkRows; row++) {
+                keys[row] = ((long) chunkBuffer.getInt(row * ROW_SIZE + LATITUDE) << 32) | row;
+            }
+            Arrays.sort(keys);
+            for (long key : keys) {
+                runsOut.write(chunk, (int) key * ROW_SIZE, ROW_SIZE);
+            }
+
+            runs.add(chunkRows);
+            chunkRows = 0;
+        }
+
+        /**
+         * Merges the runs, at most {@code maxFanIn} at a time, until a single sorted run is left.
+         *
+         * @return The file holding the sorted rows.
+         */
+        private File mergeRuns() throws IOException {
+            int input = 0;
+            while (runs.size() > 1) {
+                ArrayList<Integer> merged = new ArrayList<>();
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFiles[1 - input])))) {
+                    long offset = 0;
+                    for (int first = 0; first < runs.size(); first += maxFanIn) {
+                        List<Integer> group = runs.subList(first, Math.min(first + maxFanIn, runs.size()));
+                        int rows = merge(runFiles[input], offset, group, out);
+                        offset += (long) rows * ROW_SIZE;
+                        merged.add(rows);
+                    }
+                }
+                runs = merged;
+                input = 1 - input;
+            }
+            return runFiles[input];
+        }
+
+        /**
+         * Merges consecutive runs starting at an offset of a run file into one run.
+         *
+         * @return The number of rows merged.
+         */
+        private static int merge(File runFile, long offset, List<Integer> group, DataOutputStream out) throws IOException {
+            PriorityQueue<RunReader> readers = new PriorityQueue<>(group.size(), (a, b) -> Integer.compare(a.latitude, b.latitude));
+            ArrayList<RunReader> opened = new ArrayList<>(group.size());
+            int total = 0;
+            try {
+                for (int rows : group) {
+                    RunReader reader = new RunReader(runFile, offset, rows);
+                    opened.add(reader);
+                    if (reader.next()) {
+                        readers.add(reader);
+                    }
+                    offset += (long) rows * ROW_SIZE;
+                    total += rows;
+                }
+
+                while (!readers.isEmpty()) {
+                    RunReader reader = readers.poll();
+                    out.write(reader.row);
+                    if (reader.next()) {
+                        readers.add(reader);
+                    }
+                }
+            } finally {
+                for (RunReader reader : opened) {
+                    reader.close();
+                }
+            }
+            return total;
+        }
+
+        private static void copy(File from, OutputStream to) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = new FileInputStream(from)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    to.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the rows of one sorted run in order, through its own small buffer.
+     */
+    private static final class RunReader implements Closeable {
+        final byte[] row = new byte[ROW_SIZE];
+        int latitude;
+
+        private final DataInputStream in;
+        private int remaining;
+
+        RunReader(File runFile, long offset, int rows) throws IOException {
+            FileInputStream stream = new FileInputStream(runFile);
+            stream.getChannel().position(offset);
+            this.in = new DataInputStream(new BufferedInputStream(stream, Writer.BUFFER_SIZE));
+            this.remaining = rows;
+        }
+
+        /**
+         * Moves to the next row of the run.
+         *
+         * @return False if the run has no more rows.
+         */
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            in.readFully(row);
+            latitude = ByteBuffer.wrap(row).getInt(LATITUDE);
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
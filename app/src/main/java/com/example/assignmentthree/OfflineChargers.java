@@ -0,0 +1,232 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports a regional Open Charge Map export for offline use and answers nearby queries from it.
+ * The export is read once, from a bundled asset or a download, and converted into an
+ * {@link OfflineChargerStore} file in the app's files directory, which survives restarts and is
+ * memory-mapped rather than loaded onto the heap.
+ */
+public class OfflineChargers {
+    /** Name of the optional bundled export in the app's assets. */
+    public static final String BUNDLED_ASSET = "ocm_export.json";
+
+    /** Chargers further away than this are not offered offline. */
+    public static final double MAX_DISTANCE_METERS = 50_000;
+
+    private static final String FILE_NAME = "offline_chargers.bin";
+    private static final int CONNECT_TIMEOUT_MILLIS = 15_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+    private static OfflineChargers instance;
+
+    private final Context context;
+    private final File file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Written on the executor, read from any thread
+    private volatile OfflineChargerStore store;
+
+    /**
+     * Callback interface receiving the result of an import.
+     */
+    public interface ImportCallback {
+        /**
+         * Triggered on the main thread once the import has finished.
+         *
+         * @param count The number of chargers imported, or -1 if the import failed.
+         */
+        void onImported(int count);
+    }
+
+    /**
+     * Callback interface receiving offline query results.
+     */
+    public interface Callback {
+        /**
+         * Triggered on the main thread with the result of a query.
+         *
+         * @param chargers The chargers found, nearest first, or null if no offline data has been imported.
+         */
+        void onResult(List<EVCharger> chargers);
+    }
+
+    private OfflineChargers(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+
+        // Map a previous import lazily on the executor rather than on the caller's thread.
+        executor.execute(this::openExisting);
+    }
+
+    /**
+     * Returns the shared instance, creating it on first use.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared {@code OfflineChargers}.
+     */
+    public static synchronized OfflineChargers getInstance(Context context) {
+        if (instance == null) {
+            instance = new OfflineChargers(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Whether offline data has been imported and opened.
+     *
+     * @return True if offline queries can be answered.
+     */
+    public boolean isAvailable() {
+        return store != null;
+    }
+
+    /**
+     * Imports the bundled export if it exists and no usable offline data has been imported yet,
+     * including when a previous import was written in an older file format.
+     */
+    public void importBundledIfNeeded() {
+        executor.execute(() -> {
+            // openExisting() runs first and deletes a file it cannot open, e.g. one written in an older
+            // format, so a missing store here means there is nothing usable to keep.
+            if (store != null) {
+                return;
+            }
+
+            try {
+                if (!Arrays.asList(context.getAssets().list("")).contains(BUNDLED_ASSET)) {
+                    return;
+                }
+                try (InputStream in = context.getAssets().open(BUNDLED_ASSET)) {
+                    importFrom(in);
+                }
+            } catch (IOException e) {
+                Log.e("EV_OFFLINE", "Error importing bundled chargers: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Downloads an Open Charge Map export, e.g. a bounding box query with a large {@code maxresults},
+     * and replaces the offline data with it. The response is streamed straight into the parser
+     * rather than buffered through Volley, as regional exports can be many megabytes.
+     *
+     * @param url      The URL of the export.
+     * @param callback The callback receiving the number of imported chargers.
+     */
+    public void importFromUrl(String url, ImportCallback callback) {
+        executor.execute(() -> {
+            int count = -1;
+            HttpURLConnection connection = null;
+
+            try {
+                connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+                connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Unexpected response " + connection.getResponseCode());
+                }
+                try (InputStream in = new BufferedInputStream(connection.getInputStream())) {
+                    count = importFrom(in);
+                }
+            } catch (IOException | RuntimeException e) {
+                Log.e("EV_OFFLINE", "Error downloading chargers: " + e.getMessage());
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+
+            int result = count;
+            mainHandler.post(() -> callback.onImported(result));
+        });
+    }
+
+    /**
+     * Finds the chargers nearest to a location in the offline data on a background thread.
+     *
+     * @param latLng   The location to search around.
+     * @param k        The maximum number of chargers to return.
+     * @param callback The callback receiving the chargers on the main thread.
+     */
+    public void nearest(LatLng latLng, int k, Callback callback) {
+        executor.execute(() -> {
+            OfflineChargerStore current = store;
+            List<EVCharger> chargers = current != null ? current.nearest(latLng, k, MAX_DISTANCE_METERS) : null;
+            mainHandler.post(() -> callback.onResult(chargers));
+        });
+    }
+
+    /**
+     * Forgets the imported offline data and deletes its file on the background thread, e.g. before tests.
+     */
+    public void clear() {
+        executor.execute(() -> {
+            store = null;
+            if (file.exists() && !file.delete()) {
+                Log.e("EV_OFFLINE", "Unable to delete " + file);
+            }
+        });
+    }
+
+    /**
+     * Parses an export and writes it to the offline file. Runs on the executor.
+     * Chargers are streamed from the parser into the store writer one at a time, so memory use
+     * does not grow with the size of the export.
+     *
+     * @return The number of chargers imported.
+     */
+    private int importFrom(InputStream in) throws IOException {
+        // Write to a temporary file first, so a failed import never leaves a half-written store behind.
+        File temporary = new File(file.getPath() + ".tmp");
+        int count;
+        try (OfflineChargerStore.Writer writer = new OfflineChargerStore.Writer(temporary)) {
+            OcmPoiParser.parse(new InputStreamReader(in, StandardCharsets.UTF_8), writer::add);
+            writer.finish();
+            count = writer.size();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+
+        store = OfflineChargerStore.open(file);
+        Log.d("EV_OFFLINE", "Imported " + count + " chargers");
+        return count;
+    }
+
+    private void openExisting() {
+        if (!file.exists()) {
+            return;
+        }
+
+        try {
+            store = OfflineChargerStore.open(file);
+        } catch (IOException e) {
+            Log.e("EV_OFFLINE", "Error opening offline chargers, deleting them: " + e.getMessage());
+            if (!file.delete()) {
+                Log.e("EV_OFFLINE", "Unable to delete " + file);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.RequestFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the chargers of the {@link SavedRegion}s in the {@link ChargerDatabase} up to date in the
+ * background, so searches in them are answered on the device without waiting for the network.
+ *
+ * <p>The periodic sync only runs on an unmetered network while the device is charging. Each region
+ * is downloaded in full once a week and otherwise as a delta of the chargers modified since its last
+ * sync ({@code modifiedsince}), which is usually empty or a handful of chargers. At most
+ * {@value #MAX_PARALLEL_REGIONS} regions are downloaded at a time. Regions are synced least recently
+ * synced first, and each is marked synced as soon as its chargers are stored, so a run that is
+ * stopped part-way resumes with the regions it did not reach.</p>
+ */
+public class RegionSyncWorker extends Worker {
+    /** The most regions downloaded at the same time. */
+    public static final int MAX_PARALLEL_REGIONS = 2;
+
+    /** The most chargers downloaded for a region; a region with more is not treated as fully downloaded. */
+    public static final int MAX_RESULTS_PER_REGION = 2000;
+
+    private static final String PERIODIC_WORK_NAME = "region_sync";
+    private static final String ONE_TIME_WORK_NAME = "region_sync_now";
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    // Deltas start a little before the last sync, so changes made while it ran are not missed
+    private static final long DELTA_OVERLAP_MILLIS = 60 * 60 * 1000L;
+
+    /**
+     * Constructor, called by WorkManager.
+     *
+     * @param context The application context.
+     * @param params  The parameters of the work.
+     */
+    public RegionSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the periodic sync, unless it is already scheduled.
+     *
+     * @param context Any context.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(RegionSyncWorker.class,
+                SavedRegion.SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(PERIODIC_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Syncs the regions that are due as soon as an unmetered network is available, e.g. after a region
+     * has been saved, without waiting for the device to be charging.
+     *
+     * @param context Any context.
+     */
+    public static void syncNow(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(RegionSyncWorker.class)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(ONE_TIME_WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    /**
+     * Syncs the regions that are due, on WorkManager's background thread.
+     *
+     * @return Success if every due region was synced, retry if any failed or the work was interrupted.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        ChargerDatabase database = ChargerDatabase.getInstance(getApplicationContext());
+        long now = System.currentTimeMillis();
+
+        List<SavedRegion> due = new ArrayList<>();
+        try {
+            for (SavedRegion region : database.loadRegions()) {
+                if (region.isSyncDue(now)) {
+                    due.add(region);
+                }
+            }
+        } catch (InterruptedException e) {
+            return Result.retry();
+        }
+        if (due.isEmpty()) {
+            return Result.success();
+        }
+
+        // Least recently synced first, so an interrupted run is picked up where it stopped
+        due.sort((a, b) -> Long.compare(a.getSyncedAt(), b.getSyncedAt()));
+
+        RequestQueue queue = OcmNetwork.getInstance(getApplicationContext()).getRequestQueue();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_PARALLEL_REGIONS);
+        Metrics.Timer timer = Metrics.start("sync.total");
+        boolean synced = true;
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (SavedRegion region : due) {
+                tasks.add(() -> !isStopped() && syncRegion(database, queue, region));
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                synced &= result.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            synced = false;
+        } finally {
+            executor.shutdownNow();
+            timer.stop();
+        }
+
+        return synced ? Result.success() : Result.retry();
+    }
+
+    /**
+     * Downloads a region, in full or as a delta, and stores its chargers.
+     *
+     * @return True if the region was synced.
+     */
+    private boolean syncRegion(ChargerDatabase database, RequestQueue queue, SavedRegion region) {
+        long startedAt = System.currentTimeMillis();
+        boolean full = region.needsFullSync(startedAt);
+
+        OcmQuery query = OcmQuery.near(region.getCentre())
+                .within(region.getRadiusMeters() / 1000)
+                .maxResults(MAX_RESULTS_PER_REGION);
+        if (!full) {
+            query.modifiedSince(region.getSyncedAt() - DELTA_OVERLAP_MILLIS);
+        }
+
+        RequestFuture<List<EVCharger>> future = RequestFuture.newFuture();
+        OcmPoiRequest request = new OcmPoiRequest(query.toUrl(), future, future);
+        request.setRetryPolicy(new DefaultRetryPolicy(TIMEOUT_MILLIS, 1, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        queue.add(request);
+
+        List<EVCharger> chargers;
+        try {
+            chargers = future.get(2L * TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            request.cancel();
+            Metrics.count("sync.errors");
+            Log.e("EV_SYNC", "Error syncing region " + region.getName() + ": " + e);
+            return false;
+        }
+
+        // A capped answer may be missing chargers, so it covers nothing, and the next sync starts over in full
+        boolean complete = chargers.size() < MAX_RESULTS_PER_REGION;
+        double coveredRadius = complete ? region.getRadiusMeters() : 0;
+        if (full) {
+            database.putAll(chargers, region.getCentre(), coveredRadius);
+        } else {
+            database.putDelta(chargers, region.getCentre(), coveredRadius);
+        }
+
+        long fullSyncedAt = !complete ? 0 : full ? startedAt : region.getFullSyncedAt();
+        database.markRegionSynced(region.getId(), startedAt, fullSyncedAt);
+
+        Metrics.count("sync.regions");
+        Metrics.count("sync.chargers", chargers.size());
+        Log.d("EV_SYNC", "Synced " + chargers.size() + (full ? " chargers" : " changed chargers")
+                + " of region " + region.getName());
+        return true;
+    }
+}
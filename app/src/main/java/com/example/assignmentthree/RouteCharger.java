@@ -0,0 +1,52 @@
+package com.example.assignmentthree;
+
+/**
+ * A charger found along a route, with how far the driver has to leave the route to reach it.
+ */
+public final class RouteCharger {
+    private final EVCharger charger;
+    private final double distanceFromRouteMeters;
+    private final double distanceAlongRouteMeters;
+
+    /**
+     * Constructor.
+     *
+     * @param charger                  The charger.
+     * @param distanceFromRouteMeters  The straight-line distance from the charger to the nearest point of the route.
+     * @param distanceAlongRouteMeters The distance from the start of the route to that nearest point.
+     */
+    public RouteCharger(EVCharger charger, double distanceFromRouteMeters, double distanceAlongRouteMeters) {
+        this.charger = charger;
+        this.distanceFromRouteMeters = distanceFromRouteMeters;
+        this.distanceAlongRouteMeters = distanceAlongRouteMeters;
+    }
+
+    /**
+     * Gets the charger.
+     *
+     * @return The charger.
+     */
+    public EVCharger getCharger() { return charger; }
+
+    /**
+     * Gets the straight-line distance from the charger to the nearest point of the route.
+     *
+     * @return The distance in metres.
+     */
+    public double getDistanceFromRouteMeters() { return distanceFromRouteMeters; }
+
+    /**
+     * Gets the extra distance of a stop at the charger: leaving the route at its nearest point,
+     * driving to the charger and back. This is a straight-line estimate, not a road distance.
+     *
+     * @return The detour in metres.
+     */
+    public double getDetourMeters() { return 2 * distanceFromRouteMeters; }
+
+    /**
+     * Gets the distance from the start of the route to the point where the driver would leave it.
+     *
+     * @return The distance in metres.
+     */
+    public double getDistanceAlongRouteMeters() { return distanceAlongRouteMeters; }
+}
@@ -0,0 +1,230 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The area within a given distance of a route, for finding chargers along a drive.
+ * The corridor is covered by a row of overlapping query circles centred on the route, as few as the
+ * query radius allows, and chargers can be projected onto the route to see how far off it they are.
+ *
+ * <p>A circle of radius R centred on the route at distance c along it contains every point within
+ * w of the route between c - (R - w) and c + (R - w), however the route bends, so circles are placed
+ * every 2 (R - w) metres.</p>
+ */
+public class RouteCorridor {
+    private final List<LatLng> route;
+    private final double maxDistanceFromRouteMeters;
+
+    // Distance along the route at each point
+    private final double[] cumulativeMeters;
+
+    /**
+     * A circle to query for chargers.
+     */
+    public static final class Circle {
+        private final LatLng centre;
+        private final double radiusMeters;
+
+        Circle(LatLng centre, double radiusMeters) {
+            this.centre = centre;
+            this.radiusMeters = radiusMeters;
+        }
+
+        /** @return The centre of the circle. */
+        public LatLng getCentre() { return centre; }
+
+        /** @return The radius of the circle in metres. */
+        public double getRadiusMeters() { return radiusMeters; }
+    }
+
+    /**
+     * The position of a location relative to the route.
+     */
+    public static final class Projection {
+        private final double distanceFromRouteMeters;
+        private final double distanceAlongRouteMeters;
+
+        Projection(double distanceFromRouteMeters, double distanceAlongRouteMeters) {
+            this.distanceFromRouteMeters = distanceFromRouteMeters;
+            this.distanceAlongRouteMeters = distanceAlongRouteMeters;
+        }
+
+        /** @return The distance from the location to the nearest point of the route. */
+        public double getDistanceFromRouteMeters() { return distanceFromRouteMeters; }
+
+        /** @return The distance from the start of the route to that nearest point. */
+        public double getDistanceAlongRouteMeters() { return distanceAlongRouteMeters; }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param route                      The points of the route, in driving order. Must not be empty.
+     * @param maxDistanceFromRouteMeters The half-width of the corridor.
+     * @throws IllegalArgumentException if the route is empty or the distance is not positive.
+     */
+    public RouteCorridor(List<LatLng> route, double maxDistanceFromRouteMeters) {
+        if (route.isEmpty()) {
+            throw new IllegalArgumentException("The route has no points");
+        }
+        if (!(maxDistanceFromRouteMeters > 0)) {
+            throw new IllegalArgumentException("The corridor must have a positive width");
+        }
+
+        this.route = new ArrayList<>(route);
+        this.maxDistanceFromRouteMeters = maxDistanceFromRouteMeters;
+
+        cumulativeMeters = new double[route.size()];
+        for (int i = 1; i < route.size(); i++) {
+            cumulativeMeters[i] = cumulativeMeters[i - 1] + GeoMath.distanceMeters(route.get(i - 1), route.get(i));
+        }
+    }
+
+    /**
+     * Gets the half-width of the corridor.
+     *
+     * @return The maximum distance from the route in metres.
+     */
+    public double getMaxDistanceFromRouteMeters() {
+        return maxDistanceFromRouteMeters;
+    }
+
+    /**
+     * Gets the first point of the route.
+     *
+     * @return The start of the route.
+     */
+    public LatLng getStart() {
+        return route.get(0);
+    }
+
+    /**
+     * Gets the length of the route.
+     *
+     * @return The length in metres.
+     */
+    public double getLengthMeters() {
+        return cumulativeMeters[cumulativeMeters.length - 1];
+    }
+
+    /**
+     * Covers the corridor with the fewest circles of the given radius placed along the route.
+     *
+     * @param radiusMeters The radius of each circle; must be larger than the corridor's half-width.
+     * @return The circles, in route order.
+     * @throws IllegalArgumentException if the radius is not larger than the half-width.
+     */
+    public List<Circle> queryCircles(double radiusMeters) {
+        if (!(radiusMeters > maxDistanceFromRouteMeters)) {
+            throw new IllegalArgumentException("The query radius must be larger than the corridor's half-width");
+        }
+
+        double step = 2 * (radiusMeters - maxDistanceFromRouteMeters);
+        double length = getLengthMeters();
+        int count = Math.max(1, (int) Math.ceil(length / step));
+
+        // Spread the circles evenly, so the last one does not mostly hang over the end of the route.
+        double spacing = length / count;
+        ArrayList<Circle> circles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            circles.add(new Circle(pointAt(spacing * (i + 0.5)), radiusMeters));
+        }
+        return circles;
+    }
+
+    /**
+     * Projects a location onto the nearest point of the route.
+     *
+     * @param location The location, e.g. of a charger.
+     * @return The distance of the location from the route and of its nearest point along the route.
+     */
+    public Projection project(LatLng location) {
+        if (route.size() == 1) {
+            return new Projection(GeoMath.distanceMeters(route.get(0), location), 0);
+        }
+
+        double bestDistance = Double.MAX_VALUE;
+        double bestAlong = 0;
+        for (int i = 1; i < route.size(); i++) {
+            LatLng from = route.get(i - 1);
+            LatLng to = route.get(i);
+
+            // Work in a local flat projection around the start of the segment, which is accurate at segment scale.
+            double cos = Math.cos(Math.toRadians(from.latitude));
+            double segmentX = longitudeDelta(from.longitude, to.longitude) * cos;
+            double segmentY = to.latitude - from.latitude;
+            double pointX = longitudeDelta(from.longitude, location.longitude) * cos;
+            double pointY = location.latitude - from.latitude;
+
+            double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+            double fraction = lengthSquared > 0 ? (pointX * segmentX + pointY * segmentY) / lengthSquared : 0;
+            fraction = Math.max(0, Math.min(1, fraction));
+
+            LatLng nearest = new LatLng(
+                    from.latitude + (to.latitude - from.latitude) * fraction,
+                    from.longitude + longitudeDelta(from.longitude, to.longitude) * fraction);
+            double distance = GeoMath.distanceMeters(nearest, location);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestAlong = cumulativeMeters[i - 1] + (cumulativeMeters[i] - cumulativeMeters[i - 1]) * fraction;
+            }
+        }
+        return new Projection(bestDistance, bestAlong);
+    }
+
+    /**
+     * Keeps the chargers within the corridor and works out how far each is off the route.
+     *
+     * @param chargers The candidate chargers.
+     * @return The chargers in the corridor, in the order they are passed on the route.
+     */
+    public List<RouteCharger> chargersAlongRoute(List<EVCharger> chargers) {
+        ArrayList<RouteCharger> result = new ArrayList<>();
+        for (EVCharger charger : chargers) {
+            Projection projection = project(charger.getLocation());
+            if (projection.getDistanceFromRouteMeters() <= maxDistanceFromRouteMeters) {
+                result.add(new RouteCharger(charger, projection.getDistanceFromRouteMeters(), projection.getDistanceAlongRouteMeters()));
+            }
+        }
+        Collections.sort(result, (a, b) -> Double.compare(a.getDistanceAlongRouteMeters(), b.getDistanceAlongRouteMeters()));
+        return result;
+    }
+
+    /**
+     * Returns the point at a distance along the route.
+     */
+    private LatLng pointAt(double meters) {
+        int i = 1;
+        while (i < cumulativeMeters.length - 1 && cumulativeMeters[i] < meters) {
+            i++;
+        }
+        if (i >= cumulativeMeters.length) {
+            return route.get(0);
+        }
+
+        LatLng from = route.get(i - 1);
+        LatLng to = route.get(i);
+        double segment = cumulativeMeters[i] - cumulativeMeters[i - 1];
+        double fraction = segment > 0 ? Math.max(0, Math.min(1, (meters - cumulativeMeters[i - 1]) / segment)) : 0;
+        return new LatLng(
+                from.latitude + (to.latitude - from.latitude) * fraction,
+                from.longitude + longitudeDelta(from.longitude, to.longitude) * fraction);
+    }
+
+    /**
+     * Returns the signed longitude difference, taking the short way across the antimeridian.
+     */
+    private static double longitudeDelta(double from, double to) {
+        double delta = to - from;
+        if (delta > 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        return delta;
+    }
+}
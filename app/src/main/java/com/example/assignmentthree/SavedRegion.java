@@ -0,0 +1,96 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+/**
+ * An area whose chargers are kept on the device by {@link RegionSyncWorker}, e.g. around a depot.
+ * Besides the circle itself, it records when it was last synced, and when it was last downloaded in full
+ * rather than as a delta of the chargers modified since the previous sync.
+ */
+public final class SavedRegion {
+    /** How often a region is synced. */
+    public static final long SYNC_INTERVAL_MILLIS = 12 * 60 * 60 * 1000L;
+
+    /**
+     * How often a region is downloaded in full. Deltas only contain added and changed chargers, so
+     * removed chargers are only noticed by a full download.
+     */
+    public static final long FULL_SYNC_INTERVAL_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+
+    // A region synced slightly early is not synced again, so runs a little ahead of the interval still count
+    private static final long SYNC_SLACK_MILLIS = 30 * 60 * 1000L;
+
+    private final long id;
+    private final String name;
+    private final LatLng centre;
+    private final double radiusMeters;
+    private final long syncedAt;
+    private final long fullSyncedAt;
+
+    /**
+     * Constructor.
+     *
+     * @param id           The id of the region in the {@link ChargerDatabase}.
+     * @param name         The name shown for the region.
+     * @param centre       The centre of the region.
+     * @param radiusMeters The radius of the region in metres.
+     * @param syncedAt     When the region was last synced, or 0 if never.
+     * @param fullSyncedAt When the region was last downloaded in full, or 0 if never.
+     */
+    public SavedRegion(long id, String name, LatLng centre, double radiusMeters, long syncedAt, long fullSyncedAt) {
+        this.id = id;
+        this.name = name;
+        this.centre = centre;
+        this.radiusMeters = radiusMeters;
+        this.syncedAt = syncedAt;
+        this.fullSyncedAt = fullSyncedAt;
+    }
+
+    /** @return The id of the region. */
+    public long getId() { return id; }
+
+    /** @return The name shown for the region. */
+    public String getName() { return name; }
+
+    /** @return The centre of the region. */
+    public LatLng getCentre() { return centre; }
+
+    /** @return The radius of the region in metres. */
+    public double getRadiusMeters() { return radiusMeters; }
+
+    /** @return When the region was last synced, or 0 if never. */
+    public long getSyncedAt() { return syncedAt; }
+
+    /** @return When the region was last downloaded in full, or 0 if never. */
+    public long getFullSyncedAt() { return fullSyncedAt; }
+
+    /**
+     * Whether a location lies inside the region.
+     *
+     * @param latLng The location.
+     * @return True if the location is within the region's radius of its centre.
+     */
+    public boolean contains(LatLng latLng) {
+        return GeoMath.distanceMeters(centre, latLng) <= radiusMeters;
+    }
+
+    /**
+     * Whether the region should be synced.
+     *
+     * @param nowMillis The current time.
+     * @return True if the region has not been synced within the sync interval.
+     */
+    public boolean isSyncDue(long nowMillis) {
+        return nowMillis - syncedAt >= SYNC_INTERVAL_MILLIS - SYNC_SLACK_MILLIS;
+    }
+
+    /**
+     * Whether the next sync has to download the whole region rather than a delta.
+     *
+     * @param nowMillis The current time.
+     * @return True if the region has never been downloaded in full, or not within the full sync interval.
+     */
+    public boolean needsFullSync(long nowMillis) {
+        return fullSyncedAt <= 0 || nowMillis - fullSyncedAt >= FULL_SYNC_INTERVAL_MILLIS;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.assignmentthree;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewTreeObserver;
+import android.widget.ImageView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads Street View images of chargers. Images are requested at exactly the size of the view showing them,
+ * decoded into {@link Bitmap.Config#RGB_565} (photos have no transparency, so this halves their memory), and
+ * kept in a bounded in-memory LRU cache and a disk cache that survives restarts, both keyed by the rounded
+ * coordinates and size. When Street View has no imagery for a location this is remembered on disk, and the
+ * location is not requested again.
+ *
+ * <p>Memory and disk cache hits, network loads, missing imagery, failures, download and decode times and
+ * image sizes are recorded in {@link Metrics} under "image.*".</p>
+ */
+public class StreetViewImageLoader {
+    private static final String TAG = "EV_IMAGES";
+
+    private static final long DISK_CACHE_BYTES = 20L * 1024 * 1024;
+    private static final int TIMEOUT_MILLIS = 15_000;
+
+    // Size used for prefetching until a view has been measured
+    private static final int DEFAULT_WIDTH = 600;
+    private static final int DEFAULT_HEIGHT = 400;
+
+    private static StreetViewImageLoader instance;
+
+    private final File diskCacheDirectory;
+    private ImageDiskCache diskCache;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService loadExecutor = Executors.newFixedThreadPool(2);
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+        runnable.run();
+    }, "streetview-prefetch"));
+
+    // Incremented to drop prefetches that have not started yet
+    private final AtomicInteger prefetchGeneration = new AtomicInteger();
+
+    private volatile int preferredWidth = DEFAULT_WIDTH;
+    private volatile int preferredHeight = DEFAULT_HEIGHT;
+
+    private StreetViewImageLoader(Context context) {
+        diskCacheDirectory = new File(context.getCacheDir(), "streetview");
+
+        // Use an eighth of the app's memory class for decoded images.
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryBytes = activityManager.getMemoryClass() * 1024 * 1024 / 8;
+        memoryCache = new LruCache<String, Bitmap>(memoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Gets the shared image loader.
+     *
+     * @param context The context, used for the cache directory.
+     * @return The shared instance.
+     */
+    public static synchronized StreetViewImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new StreetViewImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the Street View image of a location into a view, at the size of the view.
+     * If the view has not been laid out yet, loading starts once it has.
+     * Must be called on the main thread.
+     *
+     * @param latitude  Latitude of the charger.
+     * @param longitude Longitude of the charger.
+     * @param view      The view to show the image in. It is left empty if there is no imagery.
+     */
+    public void load(double latitude, double longitude, ImageView view) {
+        if (view.getWidth() == 0 || view.getHeight() == 0) {
+            view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    view.getViewTreeObserver().removeOnPreDrawListener(this);
+                    load(latitude, longitude, view);
+                    return true;
+                }
+            });
+            return;
+        }
+
+        int[] size = StreetViewImages.fitSize(view.getWidth(), view.getHeight());
+        preferredWidth = size[0];
+        preferredHeight = size[1];
+
+        // Remember which image the view is waiting for, in case it is reused for another charger meanwhile.
+        String key = StreetViewImages.imageKey(latitude, longitude, size[0], size[1]);
+        view.setTag(key);
+
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            Metrics.count("image.memory_hits");
+            view.setImageBitmap(cached);
+            return;
+        }
+
+        view.setImageDrawable(null);
+        loadExecutor.execute(() -> {
+            Bitmap bitmap = loadBlocking(latitude, longitude, size[0], size[1]);
+            mainHandler.post(() -> {
+                if (bitmap != null && key.equals(view.getTag())) {
+                    view.setImageBitmap(bitmap);
+                }
+            });
+        });
+    }
+
+    /**
+     * Loads the Street View image of a location into the memory cache at low priority, at the size the
+     * last image was shown at, so showing it later is immediate.
+     *
+     * @param latitude  Latitude of the charger.
+     * @param longitude Longitude of the charger.
+     */
+    public void prefetch(double latitude, double longitude) {
+        int width = preferredWidth;
+        int height = preferredHeight;
+        if (memoryCache.get(StreetViewImages.imageKey(latitude, longitude, width, height)) != null) {
+            return;
+        }
+
+        int generation = prefetchGeneration.get();
+        prefetchExecutor.execute(() -> {
+            if (generation == prefetchGeneration.get()) {
+                loadBlocking(latitude, longitude, width, height);
+            }
+        });
+    }
+
+    /**
+     * Drops prefetches that have not started yet.
+     */
+    public void cancelPrefetches() {
+        prefetchGeneration.incrementAndGet();
+    }
+
+    /**
+     * Loads an image from memory, disk or the network, in that order. Runs on a background thread.
+     *
+     * @return The image, or null if there is no imagery or it could not be loaded.
+     */
+    private Bitmap loadBlocking(double latitude, double longitude, int width, int height) {
+        String key = StreetViewImages.imageKey(latitude, longitude, width, height);
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) {
+            Metrics.count("image.memory_hits");
+            return bitmap;
+        }
+
+        ImageDiskCache disk = diskCache();
+        String locationKey = StreetViewImages.locationKey(latitude, longitude);
+        if (disk.hasNoImage(locationKey)) {
+            Metrics.count("image.disk_hits");
+            return null;
+        }
+
+        byte[] data = disk.get(key);
+        if (data != null) {
+            Metrics.count("image.disk_hits");
+        } else {
+            Metrics.count("image.network_loads");
+            Metrics.Timer downloadTimer = Metrics.start("image.download");
+            data = download(StreetViewImages.url(latitude, longitude, width, height), locationKey);
+            downloadTimer.stop();
+            if (data == null) {
+                return null;
+            }
+            Metrics.record("image.bytes", data.length);
+            disk.put(key, data);
+        }
+
+        Metrics.Timer decodeTimer = Metrics.start("image.decode");
+        bitmap = decode(data, width, height);
+        decodeTimer.stop();
+        if (bitmap != null) {
+            memoryCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Downloads an image. A 404 answer means Street View has no imagery there, which is recorded so it is not asked again.
+     */
+    private byte[] download(String url, String locationKey) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                Metrics.count("image.no_imagery");
+                diskCache().putNoImage(locationKey);
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                Metrics.count("image.failures");
+                Log.e(TAG, "Street View request failed with HTTP " + status);
+                return null;
+            }
+
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(connection.getContentLength(), 16 * 1024));
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        } catch (IOException e) {
+            Metrics.count("image.failures");
+            Log.e(TAG, "Error loading Street View image: " + e);
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Decodes an image into RGB_565, downsampling it when it is at least twice the requested size.
+     */
+    private static Bitmap decode(byte[] data, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    /**
+     * Opens the disk cache on first use, off the main thread, since it lists the cache directory.
+     */
+    private synchronized ImageDiskCache diskCache() {
+        if (diskCache == null) {
+            diskCache = new ImageDiskCache(diskCacheDirectory, DISK_CACHE_BYTES);
+        }
+        return diskCache;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.assignmentthree;
+
+import java.io.Serializable;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The price of charging at an EV charger, as parsed from the free-text "UsageCost" field of
+ * Open Charge Map by {@link TariffParser}. A charger can charge per kWh, per minute, a flat fee
+ * per session, or any combination; parts that are not charged or not stated are {@link Double#NaN}.
+ */
+public final class Tariff implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** A tariff whose price is not known. */
+    public static final Tariff UNKNOWN = new Tariff(Double.NaN, Double.NaN, Double.NaN, null, false);
+
+    /** A charger that is free to use. */
+    public static final Tariff FREE = new Tariff(Double.NaN, Double.NaN, Double.NaN, null, true);
+
+    private final double perKwh;
+    private final double perMinute;
+    private final double flatFee;
+    private final String currency;
+    private final boolean free;
+
+    /**
+     * Constructor.
+     *
+     * @param perKwh    The price per kWh, or NaN.
+     * @param perMinute The price per minute, or NaN.
+     * @param flatFee   The fee per session, or NaN.
+     * @param currency  The ISO 4217 currency code, or null if it was not stated.
+     * @param free      Whether charging is free.
+     */
+    public Tariff(double perKwh, double perMinute, double flatFee, String currency, boolean free) {
+        this.perKwh = perKwh;
+        this.perMinute = perMinute;
+        this.flatFee = flatFee;
+        this.currency = currency;
+        this.free = free;
+    }
+
+    /**
+     * Creates a tariff with only a price per kWh.
+     *
+     * @param perKwh The price per kWh; zero or less means the price is not known.
+     * @return The tariff.
+     */
+    public static Tariff ofPerKwh(double perKwh) {
+        return perKwh > 0 ? new Tariff(perKwh, Double.NaN, Double.NaN, null, false) : UNKNOWN;
+    }
+
+    /**
+     * Gets the price per kWh.
+     *
+     * @return The price per kWh, or NaN if there is none.
+     */
+    public double getPerKwh() { return perKwh; }
+
+    /**
+     * Gets the price per minute of charging.
+     *
+     * @return The price per minute, or NaN if there is none.
+     */
+    public double getPerMinute() { return perMinute; }
+
+    /**
+     * Gets the flat fee charged per session.
+     *
+     * @return The fee, or NaN if there is none.
+     */
+    public double getFlatFee() { return flatFee; }
+
+    /**
+     * Gets the currency of the prices.
+     *
+     * @return The ISO 4217 currency code, or null if it was not stated.
+     */
+    public String getCurrency() { return currency; }
+
+    /**
+     * Whether charging is free.
+     *
+     * @return True if the charger is free to use.
+     */
+    public boolean isFree() { return free; }
+
+    /**
+     * Whether anything is known about the price.
+     *
+     * @return True if the tariff is free or has at least one price.
+     */
+    public boolean isKnown() {
+        return free || !Double.isNaN(perKwh) || !Double.isNaN(perMinute) || !Double.isNaN(flatFee);
+    }
+
+    /**
+     * Describes the tariff for display, e.g. "$0.45/kWh + $0.25/min".
+     *
+     * @return The description, "Free", or "Unknown".
+     */
+    public String describe() {
+        if (free) {
+            return "Free";
+        }
+        if (!isKnown()) {
+            return "Unknown";
+        }
+
+        String prefix = currency == null ? "$" : currency + " ";
+        StringBuilder builder = new StringBuilder();
+        if (!Double.isNaN(perKwh)) {
+            builder.append(String.format(Locale.US, "%s%.2f/kWh", prefix, perKwh));
+        }
+        if (!Double.isNaN(perMinute)) {
+            builder.append(builder.length() > 0 ? " + " : "").append(String.format(Locale.US, "%s%.2f/min", prefix, perMinute));
+        }
+        if (!Double.isNaN(flatFee)) {
+            builder.append(builder.length() > 0 ? " + " : "").append(String.format(Locale.US, "%s%.2f fee", prefix, flatFee));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Tariff tariff = (Tariff) o;
+        return Double.compare(tariff.perKwh, perKwh) == 0 &&
+                Double.compare(tariff.perMinute, perMinute) == 0 &&
+                Double.compare(tariff.flatFee, flatFee) == 0 &&
+                free == tariff.free &&
+                Objects.equals(currency, tariff.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(perKwh, perMinute, flatFee, currency, free);
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
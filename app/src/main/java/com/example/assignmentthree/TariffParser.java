@@ -0,0 +1,296 @@
+package com.example.assignmentthree;
+
+/**
+ * Parses the free-text "UsageCost" field of Open Charge Map into a {@link Tariff}.
+ * The text is scanned once, character by character, without regular expressions, substrings or
+ * boxing, so parsing thousands of POIs in bulk only allocates the resulting tariffs. Each number is
+ * classified by the unit words in the same clause, e.g. "/kWh", "per min", "per hour" or
+ * "connection fee"; a number with no unit is taken to be a price per kWh. A number after "per" or "/"
+ * is a quantity rather than a price, e.g. "$1.50 per 15 min". A comma between two digits is a decimal
+ * separator, as in "0,39", and a "c" or "p" suffix marks cents or pence.
+ */
+public final class TariffParser {
+
+    private static final int NONE = 0;
+    private static final int PER_KWH = 1;
+    private static final int PER_MINUTE = 2;
+    private static final int PER_HOUR = 3;
+    private static final int FLAT = 4;
+
+    private static final String[] CURRENCY_CODES = {"NZD", "AUD", "USD", "EUR", "GBP", "CAD"};
+    private static final String[] MINUTE_WORDS = {"min", "mins", "minute", "minutes"};
+    private static final String[] HOUR_WORDS = {"h", "hr", "hrs", "hour", "hours"};
+    private static final String[] FLAT_WORDS = {"fee", "connection", "session", "flat", "start", "charge", "visit", "plug-in"};
+
+    // Fraction digits beyond this scale cannot change a price and would overflow it.
+    private static final long MAX_SCALE = 1_000_000_000L;
+
+    private TariffParser() {
+    }
+
+    /**
+     * Parses a "UsageCost" value.
+     *
+     * @param text The text, e.g. "NZ$0.69 per kWh, $1.00 connection fee". May be null.
+     * @return The tariff; {@link Tariff#FREE} or {@link Tariff#UNKNOWN} if no price is stated.
+     */
+    public static Tariff parse(CharSequence text) {
+        if (text == null) {
+            return Tariff.UNKNOWN;
+        }
+
+        double perKwh = Double.NaN;
+        double perMinute = Double.NaN;
+        double flatFee = Double.NaN;
+        double withoutUnit = Double.NaN;
+        String currency = null;
+        boolean free = false;
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+
+            if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(text.charAt(i + 1)))) {
+                boolean quantity = isAfterPer(text, i);
+
+                // Read the number in place rather than through Double.parseDouble on a substring.
+                long whole = 0;
+                long fraction = 0;
+                long scale = 1;
+                boolean inFraction = false;
+                while (i < length) {
+                    c = text.charAt(i);
+                    if (isDigit(c)) {
+                        if (!inFraction) {
+                            whole = whole * 10 + (c - '0');
+                        } else if (scale < MAX_SCALE) {
+                            fraction = fraction * 10 + (c - '0');
+                            scale *= 10;
+                        }
+                    } else if ((c == '.' || c == ',') && !inFraction && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                        inFraction = true;
+                    } else {
+                        break;
+                    }
+                    i++;
+                }
+                double value = whole + (double) fraction / scale;
+
+                // The "15" of "$1.50 per 15 min" is picked up by the price in front of it.
+                if (quantity) {
+                    continue;
+                }
+
+                // Prices in cents or pence, e.g. "25c/min", "30 cents per kWh", "50p/kWh" or with a cent sign
+                int next = skipSpaces(text, i);
+                if (next < length && (text.charAt(next) == '\u00a2' || wordEquals(text, next, "c") || wordEquals(text, next, "cents"))) {
+                    value /= 100;
+                } else if (next < length && (wordEquals(text, next, "p") || wordEquals(text, next, "pence"))) {
+                    value /= 100;
+                    currency = currency == null ? "GBP" : currency;
+                }
+
+                int unit = unitOf(text, i);
+                if (unit != NONE && unit != FLAT) {
+                    value /= quantityOf(text, i);
+                }
+
+                switch (unit) {
+                    case PER_KWH:
+                        perKwh = Double.isNaN(perKwh) ? value : perKwh;
+                        break;
+                    case PER_MINUTE:
+                        perMinute = Double.isNaN(perMinute) ? value : perMinute;
+                        break;
+                    case PER_HOUR:
+                        perMinute = Double.isNaN(perMinute) ? value / 60 : perMinute;
+                        break;
+                    case FLAT:
+                        flatFee = Double.isNaN(flatFee) ? value : flatFee;
+                        break;
+                    default:
+                        withoutUnit = Double.isNaN(withoutUnit) ? value : withoutUnit;
+                        break;
+                }
+                continue;
+            }
+
+            if (c == '$') {
+                if (currency == null) {
+                    currency = dollarCurrency(text, i);
+                }
+            } else if (c == '\u20ac') { // Euro sign
+                currency = currency == null ? "EUR" : currency;
+            } else if (c == '\u00a3') { // Pound sign
+                currency = currency == null ? "GBP" : currency;
+            } else if (Character.isLetter(c) && (i == 0 || !Character.isLetter(text.charAt(i - 1)))) {
+                // Start of a word
+                if (wordEquals(text, i, "free")) {
+                    free = true;
+                } else if (currency == null) {
+                    for (String code : CURRENCY_CODES) {
+                        if (wordEquals(text, i, code)) {
+                            currency = code;
+                            break;
+                        }
+                    }
+                }
+            }
+            i++;
+        }
+
+        if (Double.isNaN(perKwh)) {
+            perKwh = withoutUnit;
+        }
+
+        if (Double.isNaN(perKwh) && Double.isNaN(perMinute) && Double.isNaN(flatFee)) {
+            return free ? Tariff.FREE : Tariff.UNKNOWN;
+        }
+        return new Tariff(perKwh, perMinute, flatFee, currency, false);
+    }
+
+    /**
+     * Finds the unit of the number ending at {@code from} in the rest of its clause, which ends at
+     * a separator or another price. A quantity such as the "15" of "per 15 min" is skipped.
+     */
+    private static int unitOf(CharSequence text, int from) {
+        int length = text.length();
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c) && isAfterPer(text, i)) {
+                while (i + 1 < length && isDigit(text.charAt(i + 1))) {
+                    i++;
+                }
+                continue;
+            }
+            if (c == ',' || c == ';' || c == '+' || c == '(' || c == ')' || isDigit(c)) {
+                break;
+            }
+            if (!Character.isLetter(c) || (i > 0 && Character.isLetter(text.charAt(i - 1)))) {
+                continue;
+            }
+
+            if (wordEquals(text, i, "kwh")) {
+                return PER_KWH;
+            }
+            if (anyWordEquals(text, i, MINUTE_WORDS)) {
+                return PER_MINUTE;
+            }
+            if (anyWordEquals(text, i, HOUR_WORDS)) {
+                return PER_HOUR;
+            }
+            if (anyWordEquals(text, i, FLAT_WORDS)) {
+                return FLAT;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Reads the quantity the number ending at {@code from} is charged for, e.g. 15 in "$1.50 per 15 min".
+     * Only whole quantities are recognised.
+     *
+     * @return The quantity, or 1 if the clause does not state one.
+     */
+    private static int quantityOf(CharSequence text, int from) {
+        int length = text.length();
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c) && isAfterPer(text, i)) {
+                int quantity = 0;
+                while (i < length && isDigit(text.charAt(i)) && quantity < 100_000) {
+                    quantity = quantity * 10 + (text.charAt(i) - '0');
+                    i++;
+                }
+                return quantity > 0 ? quantity : 1;
+            }
+            if (c == ',' || c == ';' || c == '+' || c == '(' || c == ')' || isDigit(c)) {
+                break;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Whether the number starting at {@code start} follows "per" or "/", which makes it a quantity rather than a price.
+     */
+    private static boolean isAfterPer(CharSequence text, int start) {
+        int i = start;
+        while (i > 0 && text.charAt(i - 1) == ' ') {
+            i--;
+        }
+        return (i > 0 && text.charAt(i - 1) == '/') || endsWithIgnoreCase(text, i, "per");
+    }
+
+    /**
+     * Works out the currency of a dollar sign from the letters in front of it, e.g. "NZ$".
+     */
+    private static String dollarCurrency(CharSequence text, int dollar) {
+        if (endsWithIgnoreCase(text, dollar, "NZ")) {
+            return "NZD";
+        }
+        if (endsWithIgnoreCase(text, dollar, "AU") || endsWithIgnoreCase(text, dollar, "A")) {
+            return "AUD";
+        }
+        if (endsWithIgnoreCase(text, dollar, "US")) {
+            return "USD";
+        }
+        if (endsWithIgnoreCase(text, dollar, "CA") || endsWithIgnoreCase(text, dollar, "C")) {
+            return "CAD";
+        }
+        return null;
+    }
+
+    private static boolean anyWordEquals(CharSequence text, int start, String[] words) {
+        for (String word : words) {
+            if (wordEquals(text, start, word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the whole word starting at {@code start} equals the given lower or upper case word, ignoring case.
+     */
+    private static boolean wordEquals(CharSequence text, int start, String word) {
+        int end = start + word.length();
+        if (end > text.length() || (end < text.length() && Character.isLetter(text.charAt(end)))) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != Character.toLowerCase(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the letters directly before {@code end} form the given word, ignoring case.
+     */
+    private static boolean endsWithIgnoreCase(CharSequence text, int end, String word) {
+        int start = end - word.length();
+        if (start < 0 || (start > 0 && Character.isLetter(text.charAt(start - 1)))) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != Character.toLowerCase(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence text, int i) {
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
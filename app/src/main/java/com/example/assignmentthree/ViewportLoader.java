@@ -0,0 +1,276 @@
+package com.example.assignmentthree;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads EV chargers for the visible part of the map as the camera moves.
+ * The map is divided into fixed tiles; when the camera settles, only tiles that have never been
+ * downloaded are requested from Open Charge Map using a bounding box query. Rapid pans are debounced,
+ * and requests for tiles that have scrolled off screen are cancelled, so network use grows with the
+ * new area explored rather than with the number of camera moves.
+ */
+public class ViewportLoader {
+    /** Size of a tile in degrees (roughly 11 km of latitude). */
+    public static final double TILE_SIZE_DEGREES = 0.1;
+
+    /** Below this zoom level the viewport covers too many tiles to load. */
+    public static final float MIN_ZOOM = 10f;
+
+    private static final long DEBOUNCE_MILLIS = 300;
+    private static final int MAX_RESULTS_PER_TILE = 500;
+    private static final int MAX_VISIBLE_TILES = 24;
+
+    // Number of tiles around the globe; tile x indices wrap at the antimeridian
+    private static final int TILES_ACROSS = (int) Math.round(360 / TILE_SIZE_DEGREES);
+
+    private final OcmRequestCoordinator requestCoordinator;
+    private final ChargerIndex chargerIndex = ChargerIndex.getInstance();
+    private final ChargerDatabase chargerDatabase;
+    private final ChargerPipeline chargerPipeline = new ChargerPipeline();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ChargerObserver observer;
+
+    // Tiles whose chargers are in the index
+    private final HashSet<Long> loadedTiles = new HashSet<>();
+    // Tiles whose chargers have been passed to the observer
+    private final HashSet<Long> shownTiles = new HashSet<>();
+    // Tiles currently being downloaded
+    private final HashMap<Long, OcmRequestCoordinator.Ticket> inFlightTiles = new HashMap<>();
+
+    private Runnable pendingLoad;
+
+    /**
+     * Callback interface receiving chargers as new tiles become available.
+     */
+    public interface ChargerObserver {
+        /**
+         * Triggered on the main thread with the chargers of newly shown tiles.
+         *
+         * @param chargers The chargers to add to the map.
+         */
+        void update(List<EVCharger> chargers);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context  The context used to get the shared request coordinator.
+     * @param observer The observer receiving the chargers of newly shown tiles.
+     */
+    public ViewportLoader(Context context, ChargerObserver observer) {
+        this.requestCoordinator = OcmRequestCoordinator.getInstance(context);
+        this.chargerDatabase = ChargerDatabase.getInstance(context);
+        this.observer = observer;
+    }
+
+    /**
+     * Should be called whenever the map camera becomes idle. Loading is debounced, so only the last
+     * of several quick camera moves triggers any work.
+     *
+     * @param bounds The visible region of the map.
+     * @param zoom   The current zoom level.
+     */
+    public void onCameraIdle(LatLngBounds bounds, float zoom) {
+        if (pendingLoad != null) {
+            handler.removeCallbacks(pendingLoad);
+        }
+
+        pendingLoad = () -> {
+            pendingLoad = null;
+            loadVisibleTiles(bounds, zoom);
+        };
+        handler.postDelayed(pendingLoad, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Cancels any pending or in-flight loads.
+     */
+    public void cancelAll() {
+        if (pendingLoad != null) {
+            handler.removeCallbacks(pendingLoad);
+            pendingLoad = null;
+        }
+
+        for (OcmRequestCoordinator.Ticket ticket : inFlightTiles.values()) {
+            ticket.cancel();
+        }
+        inFlightTiles.clear();
+    }
+
+    private void loadVisibleTiles(LatLngBounds bounds, float zoom) {
+        HashSet<Long> visibleTiles = new HashSet<>();
+
+        int fromX = tileIndex(bounds.southwest.longitude);
+        int toX = tileIndex(bounds.northeast.longitude);
+        int fromY = tileIndex(bounds.southwest.latitude);
+        int toY = tileIndex(bounds.northeast.latitude);
+
+        // A viewport crossing the antimeridian ends west of where it starts, so carry on past 180 degrees
+        // and wrap the tiles beyond it back to the western hemisphere.
+        if (fromX > toX) {
+            toX += TILES_ACROSS;
+        }
+
+        boolean tooManyTiles = zoom < MIN_ZOOM || (long) (toX - fromX + 1) * (toY - fromY + 1) > MAX_VISIBLE_TILES;
+        if (!tooManyTiles) {
+            for (int x = fromX; x <= toX; x++) {
+                for (int y = fromY; y <= toY; y++) {
+                    visibleTiles.add(tileKey(wrapTileX(x), y));
+                }
+            }
+        }
+
+        // Cancel downloads for tiles that have scrolled off screen.
+        Iterator<Map.Entry<Long, OcmRequestCoordinator.Ticket>> iterator = inFlightTiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, OcmRequestCoordinator.Ticket> entry = iterator.next();
+            if (!visibleTiles.contains(entry.getKey())) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+
+        for (long tile : visibleTiles) {
+            loadTile(tile);
+        }
+    }
+
+    /**
+     * Forgets that the tiles reaching outside an area have been shown, e.g. after the map dropped the
+     * chargers outside it, so they are shown again once they come back into view.
+     *
+     * @param south The southern latitude of the area.
+     * @param west  The western longitude of the area; see {@link GeoMath#isWithin} for areas crossing 180 degrees.
+     * @param north The northern latitude of the area.
+     * @param east  The eastern longitude of the area.
+     */
+    public void forgetTilesOutside(double south, double west, double north, double east) {
+        shownTiles.removeIf(tile -> {
+            double[] box = tileBounds(tile);
+            return !GeoMath.isWithin(box[0], box[1], south, west, north, east)
+                    || !GeoMath.isWithin(box[2], box[3], south, west, north, east);
+        });
+    }
+
+    /**
+     * Loads the tile containing a location and the tiles around it, e.g. around the user while driving.
+     * Unlike {@link #onCameraIdle}, loads for the visible area are not cancelled.
+     *
+     * @param location The location to load chargers around.
+     */
+    public void loadAround(LatLng location) {
+        int x = tileIndex(location.longitude);
+        int y = tileIndex(location.latitude);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                loadTile(tileKey(wrapTileX(x + dx), y + dy));
+            }
+        }
+    }
+
+    /**
+     * Shows a tile from the index if it has been downloaded completely and is still covered there,
+     * otherwise requests it, unless it is already shown or being downloaded.
+     */
+    private void loadTile(long tile) {
+        if (shownTiles.contains(tile) || inFlightTiles.containsKey(tile)) {
+            return;
+        }
+
+        double[] box = tileBounds(tile);
+        LatLng centre = new LatLng((box[0] + box[2]) / 2, (box[1] + box[3]) / 2);
+
+        // A downloaded tile is shown straight from the index, unless the index has evicted it since.
+        if (loadedTiles.contains(tile) && chargerIndex.withinRadiusIfCovered(centre, coveredRadius(box, centre)) != null) {
+            shownTiles.add(tile);
+            observer.update(chargerIndex.withinBounds(box[0], box[1], box[2], box[3]));
+        } else {
+            loadedTiles.remove(tile);
+            requestTile(tile, box, centre);
+        }
+    }
+
+    private void requestTile(long tile, double[] box, LatLng centre) {
+        String url = OcmQuery.boundingBox(box[0], box[1], box[2], box[3]).maxResults(MAX_RESULTS_PER_TILE).toUrl();
+
+        OcmRequestCoordinator.Ticket ticket = requestCoordinator.fetch(url,
+                response -> chargerPipeline.process(centre, response,
+                        chargers -> indexTile(box, centre, chargers),
+                        chargers -> {
+                            inFlightTiles.remove(tile);
+                            loadedTiles.add(tile);
+                            shownTiles.add(tile);
+                            observer.update(chargers);
+                        }),
+                error -> {
+                    inFlightTiles.remove(tile);
+                    Log.e("EV_API", "Error fetching tile: " + error.toString());
+                }
+        );
+
+        inFlightTiles.put(tile, ticket);
+    }
+
+    /**
+     * Adds the chargers of a tile to the index and the database. Runs on the pipeline's background thread.
+     */
+    private void indexTile(double[] box, LatLng centre, List<EVCharger> chargers) {
+        chargerIndex.insertAll(chargers);
+
+        // A full page of results may have been cut off, so only a complete tile counts as covered.
+        double coveredRadius = 0;
+        if (chargers.size() < MAX_RESULTS_PER_TILE) {
+            coveredRadius = coveredRadius(box, centre);
+            chargerIndex.markCovered(centre, coveredRadius);
+        }
+        chargerDatabase.putAll(chargers, centre, coveredRadius);
+    }
+
+    /**
+     * Returns the radius of the largest circle around the centre of a tile that fits inside it.
+     */
+    private static double coveredRadius(double[] box, LatLng centre) {
+        double halfHeight = (box[2] - box[0]) / 2 * GeoMath.METERS_PER_DEGREE;
+        double halfWidth = GeoMath.distanceMeters(centre.latitude, box[1], centre.latitude, centre.longitude);
+        return Math.min(halfHeight, halfWidth);
+    }
+
+    private static int tileIndex(double degrees) {
+        return (int) Math.floor(degrees / TILE_SIZE_DEGREES);
+    }
+
+    /**
+     * Wraps a tile x index into the range covering -180 to 180 degrees of longitude.
+     */
+    private static int wrapTileX(int x) {
+        return Math.floorMod(x + TILES_ACROSS / 2, TILES_ACROSS) - TILES_ACROSS / 2;
+    }
+
+    private static long tileKey(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+
+    /**
+     * Returns the bounds of a tile as {south, west, north, east}.
+     */
+    private static double[] tileBounds(long tile) {
+        int x = (int) tile;
+        int y = (int) (tile >> 32);
+        return new double[]{
+                y * TILE_SIZE_DEGREES, x * TILE_SIZE_DEGREES,
+                (y + 1) * TILE_SIZE_DEGREES, (x + 1) * TILE_SIZE_DEGREES
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the ChargerIndex class.
+ * These tests compare the index queries against a brute force scan over a large number of chargers.
+ * Query times are measured in the benchmark module's ChargerIndexBenchmark.
+ */
+public class ChargerIndexTest {
+
+    // Number of chargers used for the large data set
+    private static final int CHARGER_COUNT = 100_000;
+
+    private ChargerIndex index;
+    private List<EVCharger> chargers;
+
+    /**
+     * Sets up an index filled with random chargers spread over an area roughly the size of New Zealand.
+     */
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        chargers = new ArrayList<>();
+        index = new ChargerIndex(ChargerIndex.DEFAULT_CELL_SIZE_DEGREES);
+
+        for (int i = 1; i <= CHARGER_COUNT; i++) {
+            LatLng location = new LatLng(-47 + random.nextDouble() * 13, 166 + random.nextDouble() * 13);
+            EVCharger charger = new EVCharger(i, "Charger " + i, "", "", 1, 0.0, location);
+            chargers.add(charger);
+            index.insert(charger);
+        }
+    }
+
+    /**
+     * Tests that the k nearest chargers match a brute force scan over every charger.
+     */
+    @Test
+    public void testNearestMatchesBruteForce() {
+        Random random = new Random(7);
+
+        for (int q = 0; q < 20; q++) {
+            LatLng query = new LatLng(-47 + random.nextDouble() * 13, 166 + random.nextDouble() * 13);
+
+            // Pick the 10 closest chargers by scanning every charger
+            List<EVCharger> expected = new ArrayList<>();
+            double[] expectedDistances = new double[10];
+            Arrays.fill(expectedDistances, Double.MAX_VALUE);
+            for (EVCharger charger : chargers) {
+                double distance = GeoMath.distanceMeters(query, charger.getLocation());
+                int position = expected.size();
+                while (position > 0 && expectedDistances[position - 1] > distance) {
+                    position--;
+                }
+                if (position < 10) {
+                    expected.add(position, charger);
+                    System.arraycopy(expectedDistances, position, expectedDistances, position + 1, 9 - position);
+                    expectedDistances[position] = distance;
+                    if (expected.size() > 10) {
+                        expected.remove(10);
+                    }
+                }
+            }
+
+            assertEquals(expected, index.nearest(query, 10));
+        }
+    }
+
+    /**
+     * Tests that the bounding box query returns exactly the chargers inside the box.
+     */
+    @Test
+    public void testWithinBounds() {
+        double south = -41.5, west = 174.5, north = -41.0, east = 175.0;
+
+        int expected = 0;
+        for (EVCharger charger : chargers) {
+            LatLng location = charger.getLocation();
+            if (location.latitude >= south && location.latitude <= north
+                    && location.longitude >= west && location.longitude <= east) {
+                expected++;
+            }
+        }
+
+        assertEquals(expected, index.withinBounds(south, west, north, east).size());
+    }
+
+    /**
+     * Tests that re-inserting a charger with the same id replaces the old entry.
+     */
+    @Test
+    public void testInsertReplacesSameId() {
+        EVCharger moved = new EVCharger(1, "Charger 1", "", "", 1, 0.0, new LatLng(-40.0, 175.0));
+        index.insert(moved);
+
+        assertEquals(CHARGER_COUNT, index.size());
+        assertEquals(moved, index.findAt(new LatLng(-40.0, 175.0), 1.0));
+    }
+
+    /**
+     * Tests that covered queries are only answered when the covered area contains the whole answer.
+     */
+    @Test
+    public void testNearestIfCovered() {
+        LatLng centre = new LatLng(-41.3, 174.8);
+        assertNull(index.nearestIfCovered(centre, 10));
+
+        index.markCovered(centre, 20_000);
+        assertNotNull(index.nearestIfCovered(centre, 10));
+        assertNull(index.nearestIfCovered(new LatLng(-43.5, 172.6), 10));
+    }
+
+    /**
+     * Tests that radius queries are only answered inside a covered area, and match a brute force scan.
+     */
+    @Test
+    public void testWithinRadiusIfCovered() {
+        LatLng centre = new LatLng(-41.3, 174.8);
+        assertNull(index.withinRadiusIfCovered(centre, 10_000));
+
+        index.markCovered(centre, 20_000);
+        assertNull(index.withinRadiusIfCovered(new LatLng(-41.2, 174.8), 10_000));
+
+        List<EVCharger> found = index.withinRadiusIfCovered(centre, 10_000);
+        assertNotNull(found);
+
+        int expected = 0;
+        for (EVCharger charger : chargers) {
+            if (GeoMath.distanceMeters(centre, charger.getLocation()) <= 10_000) {
+                expected++;
+            }
+        }
+        assertEquals(expected, found.size());
+        assertTrue(expected > 0);
+    }
+
+    /**
+     * Tests that a full index evicts its least recently used cells, and forgets the covered areas over them.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsedCells() {
+        ChargerIndex small = new ChargerIndex(ChargerIndex.DEFAULT_CELL_SIZE_DEGREES, 20);
+        LatLng hamilton = new LatLng(-37.787, 175.279);
+        LatLng auckland = new LatLng(-36.848, 174.763);
+        LatLng wellington = new LatLng(-41.286, 174.776);
+        for (int i = 0; i < 10; i++) {
+            small.insert(new EVCharger(i, "Hamilton", "", "", 1, 0.0, new LatLng(-37.787, 175.279 + i * 1e-4)));
+            small.insert(new EVCharger(100 + i, "Auckland", "", "", 1, 0.0, new LatLng(-36.848, 174.763 + i * 1e-4)));
+        }
+        small.markCovered(hamilton, 1_000);
+        small.markCovered(auckland, 1_000);
+
+        // Querying Hamilton makes Auckland the least recently used cell
+        assertNotNull(small.nearestIfCovered(hamilton, 5));
+        small.insert(new EVCharger(200, "Wellington", "", "", 1, 0.0, wellington));
+
+        assertEquals(11, small.size());
+        assertNull(small.nearestIfCovered(auckland, 5));
+        assertNull(small.findAt(auckland, 100));
+        assertNotNull(small.nearestIfCovered(hamilton, 5));
+        assertNotNull(small.findAt(wellington, 1));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the transform step of the ChargerPipeline class.
+ */
+public class ChargerPipelineTest {
+
+    // Search origin used by the tests (Auckland CBD)
+    private static final LatLng ORIGIN = new LatLng(-36.8485, 174.7633);
+
+    /**
+     * Tests that chargers are sorted nearest first and duplicates by id or location are removed.
+     */
+    @Test
+    public void testDedupeAndSort() {
+        EVCharger far = new EVCharger(1, "far", "", "", 1, 0.0, new LatLng(-36.90, 174.80));
+        EVCharger near = new EVCharger(2, "near", "", "", 1, 0.0, new LatLng(-36.85, 174.76));
+        EVCharger nearAgain = new EVCharger(2, "near (again)", "", "", 1, 0.0, new LatLng(-36.85, 174.76));
+        EVCharger noId = new EVCharger("no id", "", "", 1, 0.0, new LatLng(-36.87, 174.77));
+        EVCharger noIdAgain = new EVCharger("no id (again)", "", "", 1, 0.0, new LatLng(-36.87, 174.77));
+
+        List<EVCharger> result = ChargerPipeline.dedupeAndSort(ORIGIN, Arrays.asList(far, near, noId, nearAgain, noIdAgain));
+
+        assertEquals(Arrays.asList(near, noId, far), result);
+    }
+
+    /**
+     * Tests that the result handed to observers cannot be modified.
+     */
+    @Test
+    public void testResultIsUnmodifiable() {
+        EVCharger charger = new EVCharger(1, "charger", "", "", 1, 0.0, new LatLng(-36.85, 174.76));
+        List<EVCharger> result = ChargerPipeline.dedupeAndSort(ORIGIN, Arrays.asList(charger));
+
+        try {
+            result.add(charger);
+            fail("The result list should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+            // Expected, observers receive an immutable model
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the ChargerRanker class.
+ */
+public class ChargerRankerTest {
+
+    // Search origin used by the tests (Auckland CBD)
+    private static final LatLng ORIGIN = new LatLng(-36.8485, 174.7633);
+
+    /**
+     * Tests that with only a distance weight the chargers are ranked nearest first.
+     */
+    @Test
+    public void testDistanceOnly() {
+        ChargerRanker ranker = new ChargerRanker();
+        ranker.setWeights(new ChargerRanker.Weights(1, 0, 0));
+
+        List<EVCharger> chargers = chargers(1000, new Random(14));
+        List<EVCharger> ranked = ranker.topK(ORIGIN, chargers, 10);
+        List<EVCharger> sorted = ChargerPipeline.dedupeAndSort(ORIGIN, chargers);
+
+        assertEquals(sorted.subList(0, 10), ranked);
+    }
+
+    /**
+     * Tests that the weights decide between a near, expensive charger and a farther, cheap one with more points.
+     */
+    @Test
+    public void testWeights() {
+        EVCharger near = new EVCharger(1, "near", "", "", 1, 0.90, new LatLng(-36.849, 174.764));
+        EVCharger far = new EVCharger(2, "far", "", "", 8, 0.30, new LatLng(-36.90, 174.80));
+        List<EVCharger> chargers = Arrays.asList(far, near);
+
+        ChargerRanker ranker = new ChargerRanker();
+        ranker.setWeights(new ChargerRanker.Weights(1, 0, 0));
+        assertEquals(Arrays.asList(near, far), ranker.topK(ORIGIN, chargers, 2));
+
+        ranker.setWeights(new ChargerRanker.Weights(0.2, 1, 1));
+        assertEquals(Arrays.asList(far, near), ranker.topK(ORIGIN, chargers, 2));
+    }
+
+    /**
+     * Tests that the bounded heap selects the same chargers, in the same order, as sorting all of them by score.
+     */
+    @Test
+    public void testTopKMatchesFullRanking() {
+        ChargerRanker ranker = new ChargerRanker();
+        Random random = new Random(5);
+
+        for (int k : new int[]{1, 7, 50, 2000}) {
+            List<EVCharger> chargers = chargers(1000, random);
+            List<EVCharger> all = ranker.topK(ORIGIN, chargers, chargers.size());
+            List<EVCharger> top = ranker.topK(ORIGIN, chargers, k);
+
+            assertEquals(Math.min(k, chargers.size()), top.size());
+            assertEquals(all.subList(0, top.size()), top);
+        }
+        assertTrue(ranker.topK(ORIGIN, new ArrayList<>(), 10).isEmpty());
+    }
+
+    /**
+     * Tests that negative weights are rejected.
+     */
+    @Test
+    public void testInvalidWeights() {
+        try {
+            new ChargerRanker.Weights(1, -1, 0);
+            fail("Negative weights should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    private static List<EVCharger> chargers(int count, Random random) {
+        ArrayList<EVCharger> chargers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double cost = random.nextInt(4) == 0 ? 0.0 : 0.3 + random.nextInt(60) / 100.0;
+            chargers.add(new EVCharger(i + 1, "charger " + i, "", "", 1 + random.nextInt(8), cost,
+                    new LatLng(-37 + random.nextDouble() * 0.5, 174.5 + random.nextDouble() * 0.5)));
+        }
+        return chargers;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the ChargerResultSet class.
+ */
+public class ChargerResultSetTest {
+
+    private static final int CHARGER_COUNT = 50_000;
+    private static final String[] TOWNS = {"Auckland", "Hamilton", "Tauranga", "Wellington", "Christchurch", "Dunedin"};
+    private static final String[] OPERATORS = {"ChargeNet", "Z Energy", "BP Pulse", "Tesla", "Jolt"};
+
+    /**
+     * Tests that every row reads back as the charger it was built from, in order.
+     */
+    @Test
+    public void testRoundTrip() {
+        List<EVCharger> chargers = chargers(1000);
+        ChargerResultSet resultSet = ChargerResultSet.of(chargers);
+
+        assertEquals(chargers.size(), resultSet.size());
+        assertEquals(chargers, resultSet.toList());
+        for (int row = 0; row < resultSet.size(); row++) {
+            assertEquals(chargers.get(row).getId(), resultSet.getId(row));
+            assertEquals(chargers.get(row).getLocation().latitude, resultSet.getLatitude(row), 0);
+        }
+    }
+
+    /**
+     * Tests that iteration reuses one view and that the view matches the chargers.
+     */
+    @Test
+    public void testFlyweightIteration() {
+        List<EVCharger> chargers = chargers(100);
+        ChargerResultSet resultSet = ChargerResultSet.of(chargers);
+
+        ChargerResultSet.Row first = null;
+        int row = 0;
+        for (ChargerResultSet.Row view : resultSet) {
+            if (first == null) {
+                first = view;
+            }
+            assertSame(first, view);
+
+            EVCharger charger = chargers.get(row++);
+            assertEquals(charger.getTitle(), view.getTitle());
+            assertEquals(charger.getAddress(), view.getAddress());
+            assertEquals(charger.getPoints(), view.getPoints());
+            assertEquals(charger.getCost(), view.getCost(), 0);
+            assertEquals(charger, view.toCharger());
+        }
+        assertEquals(chargers.size(), row);
+    }
+
+    /**
+     * Tests that repeated strings are stored once and that a known id replaces the earlier row.
+     */
+    @Test
+    public void testPoolingAndReplacement() {
+        LatLng location = new LatLng(-36.85, 174.76);
+        EVCharger first = new EVCharger(7, new String("ChargeNet"), "Description not available", "1 Queen Street, Auckland", 2, Tariff.UNKNOWN, location);
+        EVCharger second = new EVCharger(8, new String("ChargeNet"), "Description not available", "2 Queen Street, Auckland", 4, Tariff.FREE, location);
+        EVCharger replacement = new EVCharger(7, "Z Energy", "Description not available", "1 Queen Street, Auckland", 6, Tariff.ofPerKwh(0.5), location);
+
+        ChargerResultSet resultSet = new ChargerResultSet.Builder()
+                .add(first)
+                .add(second)
+                .add(replacement)
+                .build();
+
+        assertEquals(2, resultSet.size());
+        assertEquals(replacement, resultSet.get(0));
+        assertSame(Tariff.FREE, resultSet.get(1).getTariff());
+        assertNull(resultSet.get(0).getTariff().getCurrency());
+
+        // Both chargers share a single copy of the description
+        assertSame(resultSet.get(0).getDescription(), resultSet.get(1).getDescription());
+    }
+
+    /**
+     * Tests that a result set merged into a builder replaces chargers by id and appends new ones.
+     */
+    @Test
+    public void testAddAll() {
+        List<EVCharger> chargers = chargers(10);
+        ChargerResultSet.Builder builder = new ChargerResultSet.Builder().addAll(ChargerResultSet.of(chargers.subList(0, 6)));
+        ChargerResultSet built = builder.build();
+        assertSame(built, builder.build());
+
+        builder.addAll(ChargerResultSet.of(chargers.subList(4, 10)));
+        assertEquals(chargers, builder.build().toList());
+    }
+
+    /**
+     * Tests that chargers outside a box are removed, and that ids and strings still work for the chargers kept.
+     */
+    @Test
+    public void testRetainWithin() {
+        List<EVCharger> chargers = chargers(1000);
+        ChargerResultSet.Builder builder = new ChargerResultSet.Builder().addAll(ChargerResultSet.of(chargers));
+
+        List<EVCharger> inside = new ArrayList<>();
+        for (EVCharger charger : chargers) {
+            if (charger.getLocation().latitude <= -36 && charger.getLocation().longitude <= 175) {
+                inside.add(charger);
+            }
+        }
+        assertEquals(chargers.size() - inside.size(), builder.retainWithin(-40, 170, -36, 175));
+        assertEquals(inside, builder.build().toList());
+
+        // A kept id is still replaced in place, and a removed one is added again at the end
+        EVCharger kept = inside.get(0);
+        EVCharger replacement = new EVCharger(kept.getId(), "Replaced", "", "", 1, Tariff.UNKNOWN, kept.getLocation());
+        ArrayList<EVCharger> removed = new ArrayList<>(chargers);
+        removed.removeAll(inside);
+        builder.add(replacement).add(removed.get(0));
+        assertEquals(inside.size() + 1, builder.size());
+        assertEquals(replacement, builder.build().get(0));
+        assertEquals(removed.get(0), builder.build().get(inside.size()));
+    }
+
+    /**
+     * Tests that a box crossing the antimeridian keeps the chargers on both sides of it.
+     */
+    @Test
+    public void testRetainWithinAcrossAntimeridian() {
+        ChargerResultSet.Builder builder = new ChargerResultSet.Builder()
+                .add(new EVCharger(1, "East", "", "", 1, Tariff.UNKNOWN, new LatLng(-17, 179.9)))
+                .add(new EVCharger(2, "West", "", "", 1, Tariff.UNKNOWN, new LatLng(-17, -179.9)))
+                .add(new EVCharger(3, "Far", "", "", 1, Tariff.UNKNOWN, new LatLng(-17, 170)));
+
+        assertEquals(1, builder.retainWithin(-18, 179, -16, -179));
+        assertEquals(2, builder.build().size());
+        assertEquals(2, builder.build().getId(1));
+    }
+
+    /**
+     * Tests that repeated text is stored once in the shared string table, however many distinct but equal
+     * strings the chargers were built from, which is where most of the heap saving over EVCharger objects comes from.
+     */
+    @Test
+    public void testStringsAreShared() {
+        List<EVCharger> chargers = chargers(CHARGER_COUNT);
+        ChargerResultSet resultSet = ChargerResultSet.of(chargers);
+        assertEquals(CHARGER_COUNT, resultSet.size());
+
+        String description = resultSet.iterator().next().getDescription();
+        HashMap<String, String> titles = new HashMap<>();
+        HashMap<String, String> addresses = new HashMap<>();
+        for (ChargerResultSet.Row row : resultSet) {
+            String title = row.getTitle();
+            String address = row.getAddress();
+            titles.putIfAbsent(title, title);
+            addresses.putIfAbsent(address, address);
+
+            assertSame(titles.get(title), title);
+            assertSame(addresses.get(address), address);
+            assertSame(description, row.getDescription());
+        }
+        assertEquals(TOWNS.length * OPERATORS.length, titles.size());
+        assertEquals(TOWNS.length, addresses.size());
+    }
+
+    /**
+     * Creates chargers the way the parser does, with a new string for every field of every charger,
+     * even where the text is repeated.
+     */
+    private static List<EVCharger> chargers(int count) {
+        Random random = new Random(13);
+        ArrayList<EVCharger> chargers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String town = TOWNS[random.nextInt(TOWNS.length)];
+            String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            Tariff tariff = random.nextBoolean()
+                    ? new Tariff(0.4 + random.nextInt(40) / 100.0, Double.NaN, Double.NaN, new String("NZD"), false)
+                    : Tariff.UNKNOWN;
+            chargers.add(new EVCharger(
+                    i + 1,
+                    new String(operator + " " + town),
+                    new String(chars("Description not available")),
+                    new String(chars(town + ", New Zealand")),
+                    1 + random.nextInt(8),
+                    tariff,
+                    new LatLng(-37 + random.nextDouble() * 2, 174 + random.nextDouble() * 2)));
+        }
+        return chargers;
+    }
+
+    private static char[] chars(String value) {
+        return Arrays.copyOf(value.toCharArray(), value.length());
+    }
+}
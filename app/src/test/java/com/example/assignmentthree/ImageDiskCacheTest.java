@@ -0,0 +1,109 @@
+package com.example.assignmentthree;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the ImageDiskCache class and the Street View keys and sizes it is used with.
+ */
+public class ImageDiskCacheTest {
+
+    private File directory;
+
+    /**
+     * Creates an empty cache directory before each test.
+     *
+     * @throws IOException if the directory cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("streetview").toFile();
+    }
+
+    /**
+     * Deletes the cache directory after each test.
+     */
+    @After
+    public void tearDown() {
+        new ImageDiskCache(directory, Long.MAX_VALUE).clear();
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    /**
+     * Tests that images are read back and kept when the cache is opened again.
+     */
+    @Test
+    public void testPutAndReopen() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024);
+        cache.put("a", new byte[]{1, 2, 3});
+
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get("a"));
+        assertNull(cache.get("b"));
+
+        ImageDiskCache reopened = new ImageDiskCache(directory, 1024);
+        assertArrayEquals(new byte[]{1, 2, 3}, reopened.get("a"));
+        assertEquals(3, reopened.sizeBytes());
+    }
+
+    /**
+     * Tests that the least recently used images are evicted once the cache is over its size.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 300);
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        cache.put("c", new byte[100]);
+
+        // Reading "a" makes "b" the least recently used
+        cache.get("a");
+        cache.put("d", new byte[100]);
+
+        assertNull(cache.get("b"));
+        assertEquals(100, cache.get("a").length);
+        assertEquals(100, cache.get("d").length);
+        assertEquals(300, cache.sizeBytes());
+    }
+
+    /**
+     * Tests that a location without imagery is remembered, also after reopening.
+     */
+    @Test
+    public void testNoImage() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024);
+        String key = StreetViewImages.locationKey(-36.848512, 174.763321);
+
+        assertFalse(cache.hasNoImage(key));
+        cache.putNoImage(key);
+        assertTrue(cache.hasNoImage(key));
+        assertNull(cache.get(key));
+        assertTrue(new ImageDiskCache(directory, 1024).hasNoImage(key));
+    }
+
+    /**
+     * Tests that keys round coordinates and requested sizes stay within the Street View limit.
+     */
+    @Test
+    public void testStreetViewKeysAndSizes() {
+        assertEquals("sv_-36.84851_174.76332_640x320",
+                StreetViewImages.imageKey(-36.848512, 174.763321, 640, 320));
+        assertEquals(StreetViewImages.locationKey(-36.848512, 174.763321),
+                StreetViewImages.locationKey(-36.8485104, 174.7633195));
+
+        assertArrayEquals(new int[]{600, 400}, StreetViewImages.fitSize(600, 400));
+        assertArrayEquals(new int[]{640, 311}, StreetViewImages.fitSize(1080, 525));
+        assertArrayEquals(new int[]{320, 640}, StreetViewImages.fitSize(1000, 2000));
+    }
+}
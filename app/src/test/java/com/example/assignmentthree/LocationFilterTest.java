@@ -0,0 +1,44 @@
+package com.example.assignmentthree;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the LocationFilter class.
+ */
+public class LocationFilterTest {
+
+    /**
+     * Tests that only locations a minimum distance from the last accepted one are accepted.
+     */
+    @Test
+    public void testMinimumDistance() {
+        LocationFilter filter = new LocationFilter(500);
+
+        assertTrue(filter.accept(-36.8485, 174.7633));
+
+        // About 110 m north, then about 440 m: still within 500 m of the first location
+        assertFalse(filter.accept(-36.8475, 174.7633));
+        assertFalse(filter.accept(-36.8445, 174.7633));
+
+        // About 550 m from the first location
+        assertTrue(filter.accept(-36.8435, 174.7633));
+
+        // Distances are measured from the newly accepted location
+        assertFalse(filter.accept(-36.8405, 174.7633));
+    }
+
+    /**
+     * Tests that the next location is accepted after a reset.
+     */
+    @Test
+    public void testReset() {
+        LocationFilter filter = new LocationFilter(500);
+        filter.accept(-36.8485, 174.7633);
+        filter.reset();
+
+        assertTrue(filter.accept(-36.8485, 174.7633));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the MarkerClusterer class.
+ */
+public class MarkerClustererTest {
+
+    /**
+     * Tests that chargers close together are merged into one cluster at a low zoom level
+     * and the cluster sits at their centroid.
+     */
+    @Test
+    public void testDenseChargersAreClustered() {
+        List<EVCharger> chargers = grid(-36.85, 174.76, 5, 0.001);
+
+        List<MarkerClusterer.Cluster> clusters = MarkerClusterer.cluster(chargers, 8f);
+
+        assertEquals(1, clusters.size());
+        MarkerClusterer.Cluster cluster = clusters.get(0);
+        assertTrue(cluster.isCluster());
+        assertEquals(25, cluster.getChargers().size());
+        assertEquals(-36.848, cluster.getPosition().latitude, 1e-9);
+        assertEquals(174.762, cluster.getPosition().longitude, 1e-9);
+    }
+
+    /**
+     * Tests that every charger gets its own marker once zoomed in far enough.
+     */
+    @Test
+    public void testNoClusteringWhenZoomedIn() {
+        List<EVCharger> chargers = grid(-36.85, 174.76, 5, 0.001);
+
+        List<MarkerClusterer.Cluster> clusters = MarkerClusterer.cluster(chargers, MarkerClusterer.MAX_CLUSTER_ZOOM);
+
+        assertEquals(25, clusters.size());
+        for (MarkerClusterer.Cluster cluster : clusters) {
+            assertFalse(cluster.isCluster());
+        }
+    }
+
+    /**
+     * Tests that a cell with only a few chargers shows them individually.
+     */
+    @Test
+    public void testSmallGroupsAreNotClustered() {
+        List<EVCharger> chargers = grid(-36.85, 174.76, 1, 0.001);
+        chargers.add(new EVCharger(1000, "second", "", "", 1, 0.0, new LatLng(-36.8501, 174.7601)));
+
+        List<MarkerClusterer.Cluster> clusters = MarkerClusterer.cluster(chargers, 8f);
+
+        assertEquals(2, clusters.size());
+        assertEquals("charger:1000", clusters.get(1).getKey());
+    }
+
+    /**
+     * Tests that keys are stable between runs, so unchanged markers can be reused when diffing.
+     */
+    @Test
+    public void testKeysAreStable() {
+        List<EVCharger> chargers = grid(-36.85, 174.76, 20, 0.01);
+
+        HashSet<String> first = keys(MarkerClusterer.cluster(chargers, 11f));
+        HashSet<String> second = keys(MarkerClusterer.cluster(new ArrayList<>(chargers), 11f));
+
+        assertEquals(first, second);
+        assertEquals(MarkerClusterer.cluster(chargers, 11f).size(), first.size());
+    }
+
+    /**
+     * Tests that a cluster keeps its key when a charger joins it, so its marker is updated rather than replaced.
+     */
+    @Test
+    public void testClusterKeyIgnoresMembership() {
+        List<EVCharger> chargers = grid(-36.85, 174.76, 5, 0.001);
+        String before = MarkerClusterer.cluster(chargers, 8f).get(0).getKey();
+
+        chargers.add(new EVCharger(1000, "new", "", "", 1, 0.0, new LatLng(-36.8455, 174.7655)));
+        List<MarkerClusterer.Cluster> after = MarkerClusterer.cluster(chargers, 8f);
+
+        assertEquals(1, after.size());
+        assertEquals(26, after.get(0).getChargers().size());
+        assertEquals(before, after.get(0).getKey());
+    }
+
+    /**
+     * Builds a square grid of chargers with consecutive ids, starting at the given corner.
+     */
+    private static List<EVCharger> grid(double latitude, double longitude, int size, double spacing) {
+        List<EVCharger> chargers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                LatLng location = new LatLng(latitude + i * spacing, longitude + j * spacing);
+                chargers.add(new EVCharger(i * size + j + 1, "charger", "", "", 1, 0.0, location));
+            }
+        }
+        return chargers;
+    }
+
+    private static HashSet<String> keys(List<MarkerClusterer.Cluster> clusters) {
+        HashSet<String> keys = new HashSet<>();
+        for (MarkerClusterer.Cluster cluster : clusters) {
+            keys.add(cluster.getKey());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.assignmentthree;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the MetricsRegistry class.
+ */
+public class MetricsRegistryTest {
+
+    /**
+     * Tests that counters add up and unknown counters read as zero.
+     */
+    @Test
+    public void testCounters() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.increment("map.markers_added", 3);
+        registry.increment("map.markers_added", 4);
+
+        assertEquals(7, registry.getCount("map.markers_added"));
+        assertEquals(0, registry.getCount("map.markers_removed"));
+    }
+
+    /**
+     * Tests percentiles, and that they only cover the most recent window of values.
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry();
+        for (int i = 1; i <= 100; i++) {
+            registry.recordValue("ocm.payload_bytes", i);
+        }
+
+        MetricsRegistry.Histogram histogram = registry.getHistogram("ocm.payload_bytes");
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(50, histogram.getPercentile(50));
+        assertEquals(95, histogram.getPercentile(95));
+        assertEquals(100, histogram.getMax());
+
+        // Push the first values out of the window
+        for (int i = 0; i < MetricsRegistry.WINDOW; i++) {
+            registry.recordValue("ocm.payload_bytes", 1000);
+        }
+        assertEquals(1000, histogram.getPercentile(50));
+        assertEquals(100 + MetricsRegistry.WINDOW, histogram.getCount());
+    }
+
+    /**
+     * Tests that the summary lists counters and then histograms, with times in milliseconds, and that reset clears them.
+     */
+    @Test
+    public void testSummaryAndReset() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.increment("search.cache_hits", 2);
+        registry.recordTime("search.request", 120_000_000L);
+        registry.recordValue("image.bytes", 2048);
+
+        List<String> summary = registry.summary();
+        assertEquals(3, summary.size());
+        assertEquals("search.cache_hits: 2", summary.get(0));
+        assertTrue(summary.get(1).startsWith("image.bytes: n=1 p50=2048"));
+        assertEquals("search.request: n=1 p50=120.0ms p95=120.0ms max=120.0ms", summary.get(2));
+
+        registry.reset();
+        assertTrue(registry.summary().isEmpty());
+        assertNull(registry.getHistogram("search.request"));
+    }
+}
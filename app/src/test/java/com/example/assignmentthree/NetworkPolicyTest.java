@@ -0,0 +1,146 @@
+package com.example.assignmentthree;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the NetworkPolicy class.
+ */
+public class NetworkPolicyTest {
+
+    /**
+     * Tests that the timeout starts at its initial value, follows the observed latency within its bounds,
+     * and grows for retries.
+     */
+    @Test
+    public void testAdaptiveTimeout() {
+        NetworkPolicy policy = new NetworkPolicy(new Random(1));
+        assertEquals(NetworkPolicy.INITIAL_TIMEOUT_MILLIS, policy.timeoutMillis(0));
+
+        // A fast, steady endpoint is kept at the lower bound
+        for (int i = 0; i < 50; i++) {
+            policy.recordSuccess(100);
+        }
+        assertEquals(NetworkPolicy.MIN_TIMEOUT_MILLIS, policy.timeoutMillis(0));
+        assertEquals(2 * NetworkPolicy.MIN_TIMEOUT_MILLIS, policy.timeoutMillis(1));
+
+        // A slow one gets more time, but never more than the upper bound
+        for (int i = 0; i < 50; i++) {
+            policy.recordSuccess(4_000);
+        }
+        assertTrue(policy.timeoutMillis(0) >= 4_000);
+        for (int i = 0; i < 50; i++) {
+            policy.recordSuccess(60_000);
+        }
+        assertEquals(NetworkPolicy.MAX_TIMEOUT_MILLIS, policy.timeoutMillis(0));
+        assertEquals(NetworkPolicy.MAX_TIMEOUT_MILLIS, policy.timeoutMillis(3));
+    }
+
+    /**
+     * Tests that backoff delays stay within their exponentially growing, capped limits.
+     */
+    @Test
+    public void testBackoffBounds() {
+        NetworkPolicy policy = new NetworkPolicy(new Random(2));
+        for (int attempt = 0; attempt < 12; attempt++) {
+            long limit = Math.min(NetworkPolicy.MAX_BACKOFF_MILLIS, NetworkPolicy.BASE_BACKOFF_MILLIS << attempt);
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.backoffMillis(attempt);
+                assertTrue(delay >= 0 && delay < limit);
+            }
+        }
+    }
+
+    /**
+     * Tests that retries stop after the limit.
+     */
+    @Test
+    public void testRetryLimit() {
+        NetworkPolicy policy = new NetworkPolicy(new Random(3));
+        for (int attempt = 0; attempt < NetworkPolicy.MAX_RETRIES; attempt++) {
+            assertTrue(policy.shouldRetry(attempt, 0));
+        }
+        assertFalse(policy.shouldRetry(NetworkPolicy.MAX_RETRIES, 0));
+    }
+
+    /**
+     * Tests that the circuit opens after repeated failures, lets a single trial through once the open
+     * period has passed, and closes again when the trial succeeds.
+     */
+    @Test
+    public void testCircuitBreaker() {
+        NetworkPolicy policy = new NetworkPolicy(new Random(4));
+        for (int i = 0; i < NetworkPolicy.FAILURE_THRESHOLD - 1; i++) {
+            policy.recordFailure(1_000);
+        }
+        assertEquals(NetworkPolicy.State.CLOSED, policy.getState(1_000));
+
+        policy.recordFailure(1_000);
+        assertEquals(NetworkPolicy.State.OPEN, policy.getState(1_000));
+        assertFalse(policy.allowRequest(1_000));
+        assertFalse(policy.shouldRetry(0, 1_000));
+
+        // Once the open period has passed, only one trial request is allowed
+        long later = 1_000 + NetworkPolicy.OPEN_MILLIS;
+        assertEquals(NetworkPolicy.State.HALF_OPEN, policy.getState(later));
+        assertTrue(policy.allowRequest(later));
+        assertFalse(policy.allowRequest(later));
+
+        policy.recordSuccess(200);
+        assertEquals(NetworkPolicy.State.CLOSED, policy.getState(later));
+        assertTrue(policy.allowRequest(later));
+    }
+
+    /**
+     * Tests that a failed trial opens the circuit again, and a cancelled trial lets another one through.
+     */
+    @Test
+    public void testFailedAndCancelledTrials() {
+        NetworkPolicy policy = new NetworkPolicy(new Random(5));
+        for (int i = 0; i < NetworkPolicy.FAILURE_THRESHOLD; i++) {
+            policy.recordFailure(0);
+        }
+
+        long halfOpen = NetworkPolicy.OPEN_MILLIS;
+        assertTrue(policy.allowRequest(halfOpen));
+        policy.recordCancelled();
+        assertTrue(policy.allowRequest(halfOpen));
+
+        policy.recordFailure(halfOpen);
+        assertEquals(NetworkPolicy.State.OPEN, policy.getState(halfOpen));
+        assertEquals(NetworkPolicy.State.HALF_OPEN, policy.getState(halfOpen + NetworkPolicy.OPEN_MILLIS));
+    }
+
+    /**
+     * Tests that a half-open trial answered with a non-retriable error, e.g. a 4xx, closes the circuit,
+     * and that such answers break a run of failures without changing the timeout.
+     */
+    @Test
+    public void testAnsweredTrialClosesCircuit() {
+        NetworkPolicy policy = new NetworkPolicy(new Random(6));
+        for (int i = 0; i < NetworkPolicy.FAILURE_THRESHOLD; i++) {
+            policy.recordFailure(0);
+        }
+
+        long halfOpen = NetworkPolicy.OPEN_MILLIS;
+        assertTrue(policy.allowRequest(halfOpen));
+        policy.recordAnswered();
+        assertEquals(NetworkPolicy.State.CLOSED, policy.getState(halfOpen));
+        assertTrue(policy.allowRequest(halfOpen));
+        assertTrue(policy.allowRequest(halfOpen));
+        assertEquals(NetworkPolicy.INITIAL_TIMEOUT_MILLIS, policy.timeoutMillis(0));
+
+        // Failures separated by an answer are not consecutive
+        for (int i = 0; i < NetworkPolicy.FAILURE_THRESHOLD - 1; i++) {
+            policy.recordFailure(halfOpen);
+        }
+        policy.recordAnswered();
+        policy.recordFailure(halfOpen);
+        assertEquals(NetworkPolicy.State.CLOSED, policy.getState(halfOpen));
+    }
+}
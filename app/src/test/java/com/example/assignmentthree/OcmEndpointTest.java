@@ -0,0 +1,47 @@
+package com.example.assignmentthree;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the OcmEndpoint class.
+ */
+public class OcmEndpointTest {
+
+    /**
+     * Restores the live endpoint after each test.
+     */
+    @After
+    public void tearDown() {
+        OcmEndpoint.setBaseUrl(null);
+        OcmEndpoint.setApiKey(null);
+    }
+
+    /**
+     * Tests that POI URLs point at the live API by default.
+     */
+    @Test
+    public void testDefaultUrl() {
+        assertEquals("https://api.openchargemap.io/v3/poi/?output=json&latitude=1.0&longitude=2.0&key="
+                        + OcmEndpoint.DEFAULT_API_KEY,
+                OcmEndpoint.poiUrl("latitude=1.0&longitude=2.0"));
+    }
+
+    /**
+     * Tests that a stand-in base URL and key are used, with or without a trailing slash, until reset.
+     */
+    @Test
+    public void testOverride() {
+        OcmEndpoint.setBaseUrl("http://localhost:8080/v3");
+        OcmEndpoint.setApiKey("test");
+        assertEquals("http://localhost:8080/v3/poi/?output=json&maxresults=1&key=test", OcmEndpoint.poiUrl("maxresults=1"));
+
+        OcmEndpoint.setBaseUrl("http://localhost:8080/v3/");
+        assertEquals("http://localhost:8080/v3/", OcmEndpoint.getBaseUrl());
+
+        OcmEndpoint.setBaseUrl(null);
+        assertEquals(OcmEndpoint.DEFAULT_BASE_URL, OcmEndpoint.getBaseUrl());
+    }
+}
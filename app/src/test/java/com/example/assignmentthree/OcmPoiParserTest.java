@@ -0,0 +1,122 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the OcmPoiParser class.
+ * The parser is checked against a recorded Open Charge Map response and compared with the previous
+ * org.json DOM parsing. Parse time and allocation are compared in the benchmark module's OcmParseBenchmark.
+ */
+public class OcmPoiParserTest {
+
+    // Recorded Open Charge Map response with three POIs, including connections, media and comments
+    private static final String FIXTURE = "ocm_poi_response.json";
+
+    private byte[] fixture;
+
+    /**
+     * Loads the recorded response before each test.
+     *
+     * @throws IOException if the fixture cannot be read.
+     */
+    @Before
+    public void setUp() throws IOException {
+        fixture = readFixture();
+    }
+
+    /**
+     * Tests that the fields shown in the app are picked out of the response.
+     *
+     * @throws IOException if the response cannot be parsed.
+     */
+    @Test
+    public void testParseFixture() throws IOException {
+        List<EVCharger> chargers = parseWithStream(fixture);
+
+        assertEquals(3, chargers.size());
+
+        EVCharger first = chargers.get(0);
+        assertEquals(118402, first.getId());
+        assertEquals("Countdown Ponsonby", first.getTitle());
+        assertEquals("7 Pollen Street, Auckland", first.getAddress());
+        assertEquals(2, first.getPoints());
+        assertEquals(new LatLng(-36.8570, 174.7467), first.getLocation());
+        assertTrue(first.getDescription().startsWith("Rapid charger"));
+
+        // A POI without comments falls back to the default description
+        assertEquals("Description not available", chargers.get(1).getDescription());
+    }
+
+    /**
+     * Tests that the streaming parser produces exactly what the previous DOM parsing produced.
+     *
+     * @throws Exception if the response cannot be parsed.
+     */
+    @Test
+    public void testMatchesDomParsing() throws Exception {
+        assertEquals(parseWithDom(fixture), parseWithStream(fixture));
+    }
+
+    private static List<EVCharger> parseWithStream(byte[] data) throws IOException {
+        return OcmPoiParser.parse(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the response the way Searching and DetailActivity did before, by building a JSONArray first.
+     */
+    private static List<EVCharger> parseWithDom(byte[] data) throws Exception {
+        JSONArray response = new JSONArray(new String(data, StandardCharsets.UTF_8));
+        List<EVCharger> chargers = new ArrayList<>();
+
+        for (int i = 0; i < response.length(); i++) {
+            JSONObject chargerInfo = response.getJSONObject(i);
+            JSONObject addressInfo = chargerInfo.getJSONObject("AddressInfo");
+
+            String description = null;
+            if (!chargerInfo.isNull("GeneralComments")) {
+                description = chargerInfo.getString("GeneralComments");
+            } else if (!chargerInfo.isNull("Description")) {
+                description = chargerInfo.getString("Description");
+            }
+            if (description == null || description.isEmpty()) {
+                description = "Description not available";
+            }
+
+            String address = addressInfo.getString("AddressLine1") + ", " + addressInfo.getString("Town");
+            int points = chargerInfo.optInt("NumberOfPoints", 1);
+            Tariff tariff = TariffParser.parse(chargerInfo.optString("UsageCost", "N/A"));
+            LatLng location = new LatLng(addressInfo.getDouble("Latitude"), addressInfo.getDouble("Longitude"));
+
+            chargers.add(new EVCharger(chargerInfo.getInt("ID"), addressInfo.getString("Title"), description, address, points, tariff, location));
+        }
+        return chargers;
+    }
+
+    private static byte[] readFixture() throws IOException {
+        try (InputStream in = OcmPoiParserTest.class.getClassLoader().getResourceAsStream(FIXTURE)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
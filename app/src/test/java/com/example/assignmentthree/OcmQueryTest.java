@@ -0,0 +1,54 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the OcmQuery class.
+ */
+public class OcmQueryTest {
+
+    /**
+     * Tests that a nearest-POI query rounds its location and asks for the compact projection.
+     */
+    @Test
+    public void testNear() {
+        String query = OcmQuery.near(new LatLng(-37.7870123, 175.2793456)).maxResults(50).toQueryString();
+        assertEquals("latitude=-37.78701&longitude=175.27935&maxresults=50&" + OcmQuery.PROJECTION, query);
+    }
+
+    /**
+     * Tests that a bounding box is sent as its north-west and south-east corners, and a distance in kilometres.
+     */
+    @Test
+    public void testBoundingBoxAndDistance() {
+        assertEquals("boundingbox=(-37.50000,175.00000),(-38.00000,175.50000)&maxresults=10&" + OcmQuery.PROJECTION,
+                OcmQuery.boundingBox(-38, 175, -37.5, 175.5).maxResults(10).toQueryString());
+        assertEquals("latitude=1.00000&longitude=2.00000&distance=2.5&distanceunit=KM&" + OcmQuery.PROJECTION,
+                OcmQuery.near(new LatLng(1, 2)).within(2.5).toQueryString());
+    }
+
+    /**
+     * Tests that a delta query sends its time in UTC.
+     */
+    @Test
+    public void testModifiedSince() {
+        assertEquals("latitude=1.00000&longitude=2.00000&distance=25.0&distanceunit=KM&modifiedsince=2024-03-01T12:30:00&"
+                        + OcmQuery.PROJECTION,
+                OcmQuery.near(new LatLng(1, 2)).within(25).modifiedSince(1709296200000L).toQueryString());
+    }
+
+    /**
+     * Tests that the URL goes to the current endpoint and includes the key.
+     */
+    @Test
+    public void testUrl() {
+        String url = OcmQuery.near(new LatLng(1, 2)).maxResults(1).toUrl();
+        assertTrue(url.startsWith(OcmEndpoint.getBaseUrl() + "poi/?output=json&latitude=1.00000"));
+        assertTrue(url.contains("&compact=true&verbose=false&includecomments=false&key="));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the OfflineChargerStore class.
+ * A store is written to a temporary file, memory-mapped again and compared with a brute-force search.
+ */
+public class OfflineChargerStoreTest {
+
+    private static final int CHARGER_COUNT = 50_000;
+    private static final double MAX_DISTANCE_METERS = 50_000;
+
+    private File file;
+    private List<EVCharger> chargers;
+
+    /**
+     * Writes a store of random chargers spread over New Zealand before each test.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("offline_chargers", ".bin");
+
+        Random random = new Random(42);
+        chargers = new ArrayList<>(CHARGER_COUNT);
+        for (int i = 0; i < CHARGER_COUNT; i++) {
+            LatLng location = new LatLng(-41.5 + random.nextDouble() * 7, 172.5 + random.nextDouble() * 6);
+            // Most chargers share a few strings, as in real exports
+            chargers.add(new EVCharger(i + 1, "Charger " + (i % 100), "Description not available",
+                    (i % 50) + " Main Road, Town", 1 + i % 4, 0.25 + (i % 20) / 100.0, location));
+        }
+
+        OfflineChargerStore.write(chargers, file);
+    }
+
+    /**
+     * Deletes the temporary file after each test.
+     */
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * Tests that all fields survive the round trip, with coordinates rounded to microdegrees.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<EVCharger> small = Arrays.asList(
+                new EVCharger(118402, "Countdown Ponsonby", "Rapid charger", "7 Pollen Street, Auckland", 2, 0.59, new LatLng(-36.8570, 174.7467)),
+                new EVCharger(154220, "Z Wellington", "Description not available", "Taranaki Street, Wellington", 1, 0.0, new LatLng(-41.2923, 174.7787)));
+        OfflineChargerStore.write(small, file);
+
+        OfflineChargerStore store = OfflineChargerStore.open(file);
+        assertEquals(2, store.size());
+
+        // Rows are sorted by latitude, so the Wellington charger comes first
+        EVCharger charger = store.charger(1);
+        assertEquals(118402, charger.getId());
+        assertEquals("Countdown Ponsonby", charger.getTitle());
+        assertEquals("Rapid charger", charger.getDescription());
+        assertEquals("7 Pollen Street, Auckland", charger.getAddress());
+        assertEquals(2, charger.getPoints());
+        assertEquals(0.59, charger.getCost(), 1e-6);
+        assertEquals(-36.8570, charger.getLocation().latitude, 1e-6);
+        assertEquals(174.7467, charger.getLocation().longitude, 1e-6);
+    }
+
+    /**
+     * Tests that nearest-neighbour queries match a brute-force search over all chargers.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    @Test
+    public void testNearestMatchesBruteForce() throws IOException {
+        OfflineChargerStore store = OfflineChargerStore.open(file);
+        Random random = new Random(7);
+
+        for (int query = 0; query < 50; query++) {
+            LatLng origin = new LatLng(-41.5 + random.nextDouble() * 7, 172.5 + random.nextDouble() * 6);
+
+            List<EVCharger> result = store.nearest(origin, 10, MAX_DISTANCE_METERS);
+
+            double[] expected = bruteForceDistances(origin, 10);
+            assertEquals(expected.length, result.size());
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], GeoMath.distanceMeters(origin, result.get(i).getLocation()), 0.5);
+            }
+        }
+    }
+
+    /**
+     * Tests that a store sorted through many small runs and several merge passes matches the brute-force search,
+     * and that the temporary files are deleted afterwards.
+     *
+     * @throws IOException if the file cannot be written or read.
+     */
+    @Test
+    public void testMergesManyRuns() throws IOException {
+        // 500 runs of 100 rows, merged 4 at a time, needs five merge passes
+        try (OfflineChargerStore.Writer writer = new OfflineChargerStore.Writer(file, 100, 4)) {
+            for (EVCharger charger : chargers) {
+                writer.add(charger);
+            }
+            writer.finish();
+            assertEquals(CHARGER_COUNT, writer.size());
+        }
+        assertFalse(new File(file.getPath() + ".runs").exists());
+        assertFalse(new File(file.getPath() + ".merge").exists());
+        assertFalse(new File(file.getPath() + ".strings").exists());
+
+        OfflineChargerStore store = OfflineChargerStore.open(file);
+        assertEquals(CHARGER_COUNT, store.size());
+        for (int row = 1; row < store.size(); row++) {
+            assertTrue(store.charger(row - 1).getLocation().latitude <= store.charger(row).getLocation().latitude);
+        }
+
+        LatLng origin = new LatLng(-38.1, 175.9);
+        List<EVCharger> result = store.nearest(origin, 10, MAX_DISTANCE_METERS);
+        double[] expected = bruteForceDistances(origin, 10);
+        assertEquals(expected.length, result.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], GeoMath.distanceMeters(origin, result.get(i).getLocation()), 0.5);
+        }
+    }
+
+    /**
+     * Tests that nothing beyond the maximum distance is returned.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    @Test
+    public void testMaxDistance() throws IOException {
+        OfflineChargerStore store = OfflineChargerStore.open(file);
+
+        // Far out in the Pacific, well away from every charger
+        assertTrue(store.nearest(new LatLng(-20, -150), 10, MAX_DISTANCE_METERS).isEmpty());
+    }
+
+    /**
+     * Tests that repeated strings are stored once, keeping the file close to the fixed row size.
+     */
+    @Test
+    public void testStringsAreShared() {
+        // 48 bytes per row plus a header and a small string table
+        assertTrue("File is " + file.length() + " bytes", file.length() < CHARGER_COUNT * 48L + 10_000);
+    }
+
+    /**
+     * Returns the distances of the k nearest chargers, nearest first, by checking every charger.
+     */
+    private double[] bruteForceDistances(LatLng origin, int k) {
+        double[] best = new double[k];
+        Arrays.fill(best, Double.MAX_VALUE);
+        for (EVCharger charger : chargers) {
+            double distance = GeoMath.distanceMeters(origin, charger.getLocation());
+            if (distance < best[k - 1] && distance <= MAX_DISTANCE_METERS) {
+                int i = k - 1;
+                while (i > 0 && best[i - 1] > distance) {
+                    best[i] = best[i - 1];
+                    i--;
+                }
+                best[i] = distance;
+            }
+        }
+
+        int found = 0;
+        while (found < k && best[found] != Double.MAX_VALUE) {
+            found++;
+        }
+        return Arrays.copyOf(best, found);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the RouteCorridor class, using a drive from Auckland towards Hamilton with a bend in it.
+ */
+public class RouteCorridorTest {
+
+    private static final List<LatLng> ROUTE = Arrays.asList(
+            new LatLng(-36.8485, 174.7633),
+            new LatLng(-37.2000, 174.9000),
+            new LatLng(-37.3000, 175.1500),
+            new LatLng(-37.7870, 175.2793));
+
+    private static final double MAX_DISTANCE_FROM_ROUTE = 2_000;
+    private static final double QUERY_RADIUS = 10_000;
+
+    /**
+     * Tests that the query circles cover every point within the corridor, with the expected number of circles.
+     */
+    @Test
+    public void testCirclesCoverCorridor() {
+        RouteCorridor corridor = new RouteCorridor(ROUTE, MAX_DISTANCE_FROM_ROUTE);
+        List<RouteCorridor.Circle> circles = corridor.queryCircles(QUERY_RADIUS);
+
+        int minimum = (int) Math.ceil(corridor.getLengthMeters() / (2 * (QUERY_RADIUS - MAX_DISTANCE_FROM_ROUTE)));
+        assertEquals(minimum, circles.size());
+
+        Random random = new Random(18);
+        for (int i = 0; i < 10_000; i++) {
+            LatLng point = new LatLng(-37.9 + random.nextDouble() * 1.2, 174.6 + random.nextDouble() * 0.8);
+            if (corridor.project(point).getDistanceFromRouteMeters() > MAX_DISTANCE_FROM_ROUTE) {
+                continue;
+            }
+
+            boolean covered = false;
+            for (RouteCorridor.Circle circle : circles) {
+                covered |= GeoMath.distanceMeters(circle.getCentre(), point) <= circle.getRadiusMeters();
+            }
+            assertTrue("Not covered: " + point.latitude + ", " + point.longitude, covered);
+        }
+    }
+
+    /**
+     * Tests the projection of points onto the route.
+     */
+    @Test
+    public void testProjection() {
+        RouteCorridor corridor = new RouteCorridor(ROUTE, MAX_DISTANCE_FROM_ROUTE);
+
+        RouteCorridor.Projection start = corridor.project(ROUTE.get(0));
+        assertEquals(0, start.getDistanceFromRouteMeters(), 1);
+        assertEquals(0, start.getDistanceAlongRouteMeters(), 1);
+
+        RouteCorridor.Projection end = corridor.project(ROUTE.get(ROUTE.size() - 1));
+        assertEquals(corridor.getLengthMeters(), end.getDistanceAlongRouteMeters(), 1);
+
+        // About 1.1 km west of the middle of the last, roughly north-south, segment
+        LatLng middle = new LatLng(-37.5435, 175.2147);
+        RouteCorridor.Projection beside = corridor.project(new LatLng(middle.latitude, middle.longitude - 0.0125));
+        assertEquals(1_100, beside.getDistanceFromRouteMeters(), 100);
+    }
+
+    /**
+     * Tests that chargers outside the corridor are dropped and the rest ordered along the route with their detour.
+     */
+    @Test
+    public void testChargersAlongRoute() {
+        RouteCorridor corridor = new RouteCorridor(ROUTE, MAX_DISTANCE_FROM_ROUTE);
+        EVCharger nearEnd = new EVCharger(1, "near end", "", "", 1, 0.0, new LatLng(-37.7800, 175.2800));
+        EVCharger nearStart = new EVCharger(2, "near start", "", "", 1, 0.0, new LatLng(-36.8500, 174.7700));
+        EVCharger offRoute = new EVCharger(3, "off route", "", "", 1, 0.0, new LatLng(-37.0000, 175.5000));
+
+        List<RouteCharger> along = corridor.chargersAlongRoute(new ArrayList<>(Arrays.asList(nearEnd, offRoute, nearStart)));
+
+        assertEquals(2, along.size());
+        assertEquals(nearStart, along.get(0).getCharger());
+        assertEquals(nearEnd, along.get(1).getCharger());
+        assertEquals(2 * along.get(0).getDistanceFromRouteMeters(), along.get(0).getDetourMeters(), 0);
+        assertTrue(along.get(0).getDistanceFromRouteMeters() < MAX_DISTANCE_FROM_ROUTE);
+    }
+
+    /**
+     * Tests that a route of a single point is covered by one circle around it.
+     */
+    @Test
+    public void testSinglePoint() {
+        RouteCorridor corridor = new RouteCorridor(ROUTE.subList(0, 1), MAX_DISTANCE_FROM_ROUTE);
+        List<RouteCorridor.Circle> circles = corridor.queryCircles(QUERY_RADIUS);
+
+        assertEquals(1, circles.size());
+        assertEquals(ROUTE.get(0).latitude, circles.get(0).getCentre().latitude, 1e-9);
+    }
+}
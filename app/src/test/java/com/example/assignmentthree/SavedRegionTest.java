@@ -0,0 +1,44 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the SavedRegion class.
+ */
+public class SavedRegionTest {
+    private static final LatLng DEPOT = new LatLng(-37.787, 175.279);
+    private static final long NOW = 1_700_000_000_000L;
+
+    /**
+     * Tests that a location is inside a region within its radius only.
+     */
+    @Test
+    public void testContains() {
+        SavedRegion region = new SavedRegion(1, "Depot", DEPOT, 1_000, 0, 0);
+        assertTrue(region.contains(DEPOT));
+        assertTrue(region.contains(new LatLng(-37.787, 175.289)));
+        assertFalse(region.contains(new LatLng(-37.787, 175.299)));
+    }
+
+    /**
+     * Tests that a region is synced once per interval, and is downloaded in full when it never was
+     * or the last full download is a week old.
+     */
+    @Test
+    public void testSyncSchedule() {
+        SavedRegion neverSynced = new SavedRegion(1, "Depot", DEPOT, 1_000, 0, 0);
+        assertTrue(neverSynced.isSyncDue(NOW));
+        assertTrue(neverSynced.needsFullSync(NOW));
+
+        SavedRegion synced = new SavedRegion(1, "Depot", DEPOT, 1_000, NOW - 60_000, NOW - 60_000);
+        assertFalse(synced.isSyncDue(NOW));
+        assertTrue(synced.isSyncDue(NOW + SavedRegion.SYNC_INTERVAL_MILLIS));
+        assertFalse(synced.needsFullSync(NOW + SavedRegion.SYNC_INTERVAL_MILLIS));
+        assertTrue(synced.needsFullSync(NOW + SavedRegion.FULL_SYNC_INTERVAL_MILLIS));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.assignmentthree;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the TariffParser class, using UsageCost values as they appear in Open Charge Map.
+ */
+public class TariffParserTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Tests a combined per-kWh and per-minute price, which the old regex-based parsing turned into 0.
+     */
+    @Test
+    public void testPerKwhAndPerMinute() {
+        Tariff tariff = TariffParser.parse("$0.45/kWh + $0.25/min");
+
+        assertEquals(0.45, tariff.getPerKwh(), DELTA);
+        assertEquals(0.25, tariff.getPerMinute(), DELTA);
+        assertTrue(Double.isNaN(tariff.getFlatFee()));
+        assertEquals("$0.45/kWh + $0.25/min", tariff.describe());
+    }
+
+    /**
+     * Tests a price with a currency prefix and a connection fee.
+     */
+    @Test
+    public void testCurrencyAndFlatFee() {
+        Tariff tariff = TariffParser.parse("NZ$0.69 per kWh, $1.00 connection fee");
+
+        assertEquals(0.69, tariff.getPerKwh(), DELTA);
+        assertEquals(1.00, tariff.getFlatFee(), DELTA);
+        assertEquals("NZD", tariff.getCurrency());
+    }
+
+    /**
+     * Tests prices given in cents, per hour, and as a currency code.
+     */
+    @Test
+    public void testCentsHoursAndCodes() {
+        assertEquals(0.25, TariffParser.parse("25c/min").getPerMinute(), DELTA);
+        assertEquals(0.30, TariffParser.parse("30 cents per kWh").getPerKwh(), DELTA);
+        assertEquals(0.10, TariffParser.parse("$6 per hour").getPerMinute(), DELTA);
+        assertEquals("EUR", TariffParser.parse("0.39 EUR/kWh").getCurrency());
+        assertEquals("GBP", TariffParser.parse("\u00a30.79 per kWh").getCurrency());
+    }
+
+    /**
+     * Tests that a number without a unit is taken as a price per kWh, as the app always assumed.
+     */
+    @Test
+    public void testBareNumber() {
+        Tariff tariff = TariffParser.parse("0.59");
+
+        assertEquals(0.59, tariff.getPerKwh(), DELTA);
+        assertTrue(tariff.isKnown());
+        assertFalse(tariff.isFree());
+    }
+
+    /**
+     * Tests free chargers and values without any price.
+     */
+    @Test
+    public void testFreeAndUnknown() {
+        assertSame(Tariff.FREE, TariffParser.parse("Free"));
+        assertSame(Tariff.FREE, TariffParser.parse("Free for customers"));
+        assertSame(Tariff.UNKNOWN, TariffParser.parse("N/A"));
+        assertSame(Tariff.UNKNOWN, TariffParser.parse(""));
+        assertSame(Tariff.UNKNOWN, TariffParser.parse(null));
+
+        // A price wins over the word "free"
+        assertEquals(0.40, TariffParser.parse("Free parking, $0.40/kWh").getPerKwh(), DELTA);
+    }
+
+    /**
+     * Tests a decimal comma, as in European UsageCost values, which must not split the price in two.
+     */
+    @Test
+    public void testDecimalComma() {
+        Tariff tariff = TariffParser.parse("\u20ac0,39/kWh");
+
+        assertEquals(0.39, tariff.getPerKwh(), DELTA);
+        assertEquals("EUR", tariff.getCurrency());
+    }
+
+    /**
+     * Tests prices in pence, which are a hundredth of a pound.
+     */
+    @Test
+    public void testPence() {
+        Tariff tariff = TariffParser.parse("50p/kWh");
+
+        assertEquals(0.50, tariff.getPerKwh(), DELTA);
+        assertEquals("GBP", tariff.getCurrency());
+    }
+
+    /**
+     * Tests a unit written after a currency symbol that follows the price.
+     */
+    @Test
+    public void testUnitAfterCurrencySymbol() {
+        Tariff tariff = TariffParser.parse("0.30 $/min");
+
+        assertEquals(0.30, tariff.getPerMinute(), DELTA);
+        assertTrue(Double.isNaN(tariff.getPerKwh()));
+    }
+
+    /**
+     * Tests that a quantity after "per" divides the price instead of being read as a second price.
+     */
+    @Test
+    public void testQuantityAfterPer() {
+        Tariff tariff = TariffParser.parse("1.50 per 15 min");
+
+        assertEquals(0.10, tariff.getPerMinute(), DELTA);
+        assertTrue(Double.isNaN(tariff.getPerKwh()));
+        assertTrue(Double.isNaN(tariff.getFlatFee()));
+        assertEquals(2.0, TariffParser.parse("$6/3 hours").getPerMinute() * 60, DELTA);
+    }
+}
@@ -0,0 +1,54 @@
+// JMH benchmarks for the charger data path: OCM parsing (streaming and the old DOM baseline), cost parsing, parcelling, distance sorting
+// and k-nearest queries on the spatial index.
+// Run with ./gradlew :benchmark:jmh; results are written as JSON to build/results/jmh/results.json.
+plugins {
+    `java-library`
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// The data path classes only touch LatLng, Parcel and Handler from the Android SDK, so they are compiled
+// straight from the app sources against the small JVM stand-ins in src/jmh, rather than depending on the
+// Android application module, which a JVM module cannot do.
+sourceSets {
+    named("jmh") {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/assignmentthree/EVCharger.java",
+                "com/example/assignmentthree/Tariff.java",
+                "com/example/assignmentthree/TariffParser.java",
+                "com/example/assignmentthree/GeoMath.java",
+                "com/example/assignmentthree/OcmPoiParser.java",
+                "com/example/assignmentthree/ChargerPipeline.java",
+                "com/example/assignmentthree/ChargerRanker.java",
+                "com/example/assignmentthree/ChargerIndex.java",
+                "com/example/assignmentthree/*Benchmark.java",
+                "com/example/assignmentthree/PoiFixtures.java",
+                "android/**",
+                "com/google/**"
+            )
+        }
+        // The recorded Open Charge Map response the fixtures are built from
+        resources.srcDir("../app/src/test/resources")
+    }
+}
+
+dependencies {
+    jmh("com.google.code.gson:gson:2.10.1")
+    jmh("org.json:json:20231013") // For the DOM parsing baseline
+}
+
+jmh {
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    warmup.set("1s")
+}
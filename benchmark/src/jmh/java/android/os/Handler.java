@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class that runs posted work straight away on the calling thread.
+ */
+public class Handler {
+    public Handler(Looper looper) {
+    }
+
+    public final boolean post(Runnable runnable) {
+        runnable.run();
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class; there is no main looper outside a device.
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+}
@@ -0,0 +1,95 @@
+package android.os;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JVM stand-in for the Android class. Like the native implementation it writes primitives into one
+ * flat, growable buffer and strings as a length followed by their characters, so parcelling costs
+ * are comparable, though not identical, to those on a device.
+ */
+public final class Parcel {
+    private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.nativeOrder());
+
+    private Parcel() {
+    }
+
+    public static Parcel obtain() {
+        return new Parcel();
+    }
+
+    public void recycle() {
+        buffer.clear();
+    }
+
+    public void setDataPosition(int position) {
+        buffer.position(position);
+    }
+
+    public int dataSize() {
+        return buffer.position();
+    }
+
+    public void writeInt(int value) {
+        ensure(4).putInt(value);
+    }
+
+    public void writeLong(long value) {
+        ensure(8).putLong(value);
+    }
+
+    public void writeFloat(float value) {
+        ensure(4).putFloat(value);
+    }
+
+    public void writeDouble(double value) {
+        ensure(8).putDouble(value);
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_16LE);
+        writeInt(value.length());
+        ensure(bytes.length).put(bytes);
+    }
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    public float readFloat() {
+        return buffer.getFloat();
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    public String readString() {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length * 2];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_16LE);
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes)).order(ByteOrder.nativeOrder());
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * k-nearest queries on the spatial index, as answered for every search of an area already loaded.
+ * An average query over 100k chargers should stay well under a millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChargerIndexBenchmark {
+
+    private static final int QUERY_POINTS = 1024;
+
+    @Param({"1000", "100000"})
+    public int pois;
+
+    private ChargerIndex index;
+    private LatLng[] points;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Unbounded, so the whole fixture stays indexed
+        index = new ChargerIndex(ChargerIndex.DEFAULT_CELL_SIZE_DEGREES);
+        index.insertAll(PoiFixtures.chargers(pois));
+
+        // Query points over the same area as the fixture chargers
+        Random random = new Random(3);
+        points = new LatLng[QUERY_POINTS];
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            points[i] = new LatLng(-37.2 + random.nextDouble() * 0.8, 174.4 + random.nextDouble() * 0.8);
+        }
+    }
+
+    @Benchmark
+    public List<EVCharger> nearest() {
+        LatLng point = points[next];
+        next = (next + 1) % QUERY_POINTS;
+        return index.nearest(point, 10);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * De-duplicating and sorting result lists by distance from the search origin.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceSortBenchmark {
+
+    // Search origin (Auckland CBD)
+    private static final LatLng ORIGIN = new LatLng(-36.8485, 174.7633);
+
+    @Param({"10", "1000", "100000"})
+    public int pois;
+
+    private List<EVCharger> chargers;
+
+    @Setup
+    public void setUp() throws IOException {
+        chargers = PoiFixtures.chargers(pois);
+    }
+
+    @Benchmark
+    public List<EVCharger> dedupeAndSort() {
+        return ChargerPipeline.dedupeAndSort(ORIGIN, chargers);
+    }
+}
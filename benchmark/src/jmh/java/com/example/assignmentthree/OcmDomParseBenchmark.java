@@ -0,0 +1,73 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The org.json DOM parsing Searching and DetailActivity used before {@link OcmPoiParser}, kept as the
+ * baseline for {@link OcmParseBenchmark}. The whole response is read into a string and a JSONArray first,
+ * so it is only run up to 1,000 POIs. Run both with {@code -prof gc} to compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OcmDomParseBenchmark {
+
+    @Param({"10", "1000"})
+    public int pois;
+
+    @Benchmark
+    public List<EVCharger> parse() throws IOException, JSONException {
+        return parseWithDom(PoiFixtures.response(pois));
+    }
+
+    private static List<EVCharger> parseWithDom(Reader in) throws IOException, JSONException {
+        StringBuilder body = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.append(buffer, 0, read);
+        }
+
+        JSONArray response = new JSONArray(body.toString());
+        List<EVCharger> chargers = new ArrayList<>();
+        for (int i = 0; i < response.length(); i++) {
+            JSONObject chargerInfo = response.getJSONObject(i);
+            JSONObject addressInfo = chargerInfo.getJSONObject("AddressInfo");
+
+            String description = null;
+            if (!chargerInfo.isNull("GeneralComments")) {
+                description = chargerInfo.getString("GeneralComments");
+            } else if (!chargerInfo.isNull("Description")) {
+                description = chargerInfo.getString("Description");
+            }
+            if (description == null || description.isEmpty()) {
+                description = "Description not available";
+            }
+
+            String address = addressInfo.getString("AddressLine1") + ", " + addressInfo.getString("Town");
+            int points = chargerInfo.optInt("NumberOfPoints", 1);
+            Tariff tariff = TariffParser.parse(chargerInfo.optString("UsageCost", "N/A"));
+            LatLng location = new LatLng(addressInfo.getDouble("Latitude"), addressInfo.getDouble("Longitude"));
+
+            chargers.add(new EVCharger(chargerInfo.getInt("ID"), addressInfo.getString("Title"), description, address, points, tariff, location));
+        }
+        return chargers;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.assignmentthree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of Open Charge Map responses, as done for every search and detail request.
+ * Compare with {@link OcmDomParseBenchmark}; with {@code -prof gc} streaming should allocate far less per POI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OcmParseBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int pois;
+
+    @Benchmark
+    public List<EVCharger> parse() throws IOException {
+        return OcmPoiParser.parse(PoiFixtures.response(pois));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.assignmentthree;
+
+import android.os.Parcel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing an {@link EVCharger} into an intent extra and reading it back on the detail screen.
+ * Runs against the JVM Parcel stand-in, so it tracks the cost of the charger's own fields
+ * rather than the exact cost on a device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParcelBenchmark {
+
+    private EVCharger charger;
+
+    @Setup
+    public void setUp() throws IOException {
+        charger = PoiFixtures.chargers(1).get(0);
+    }
+
+    @Benchmark
+    public EVCharger parcelRoundTrip() {
+        Parcel parcel = Parcel.obtain();
+        charger.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        EVCharger copy = EVCharger.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        return copy;
+    }
+}
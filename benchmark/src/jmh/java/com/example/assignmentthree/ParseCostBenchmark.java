@@ -0,0 +1,66 @@
+package com.example.assignmentthree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the free-text UsageCost field of a POI, comparing {@link TariffParser} with the
+ * regex-based parseCost it replaced. Run with {@code -prof gc} to compare allocation as well;
+ * TariffParser should allocate only the resulting tariff, around 48 bytes per parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParseCostBenchmark {
+
+    // UsageCost values as they appear in Open Charge Map responses
+    private final String[] costs = {
+            "$0.45/kWh + $0.25/min",
+            "Free",
+            "NZ$0.69 per kWh, $1.00 connection fee",
+            "0.59",
+            "$0.30 per kWh",
+            "N/A",
+            "Free for customers",
+            "25c/min",
+            "\u20ac0,39/kWh",
+            "50p/kWh",
+            "0.30 $/min",
+            "1.50 per 15 min"
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void tariffParser(Blackhole blackhole) {
+        for (String cost : costs) {
+            blackhole.consume(TariffParser.parse(cost));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void legacyParseCost(Blackhole blackhole) {
+        for (String cost : costs) {
+            blackhole.consume(legacyParseCost(cost));
+        }
+    }
+
+    /**
+     * The parseCost previously used for every POI, kept here as the baseline.
+     */
+    private static double legacyParseCost(String costString) {
+        try {
+            return Double.parseDouble(costString.replaceAll("[^\\d.]", "0"));
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
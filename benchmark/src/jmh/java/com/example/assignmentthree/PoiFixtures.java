@@ -0,0 +1,133 @@
+package com.example.assignmentthree;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark fixtures of any size, built from the recorded Open Charge Map response used by the unit tests.
+ */
+final class PoiFixtures {
+    private static final String RECORDED_RESPONSE = "ocm_poi_response.json";
+
+    private static String pois;
+
+    private PoiFixtures() {
+    }
+
+    /**
+     * Returns a reader over a response of the given number of POIs, cycling through the recorded ones.
+     * The response is generated as it is read, so even 100k POIs (several hundred MB of JSON) never sit on the heap.
+     */
+    static Reader response(int count) throws IOException {
+        String body = recordedPois();
+        int recorded = recordedCount();
+
+        return new Reader() {
+            private int emitted;
+            private Reader current = new StringReader("[");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                while (true) {
+                    int read = current.read(buffer, offset, length);
+                    if (read != -1) {
+                        return read;
+                    }
+                    if (emitted >= count) {
+                        return -1;
+                    }
+
+                    // Each chunk holds all recorded POIs; the last one is cut short with a closing bracket.
+                    int take = Math.min(recorded, count - emitted);
+                    String chunk = take == recorded ? body : firstPois(body, take);
+                    emitted += take;
+                    current = new StringReader(chunk + (emitted < count ? "," : "]"));
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Returns the given number of chargers parsed from the recorded response, each with its own id
+     * and spread randomly over the Auckland region, for benchmarks that start from parsed chargers.
+     */
+    static List<EVCharger> chargers(int count) throws IOException {
+        List<EVCharger> recorded = OcmPoiParser.parse(new StringReader("[" + recordedPois() + "]"));
+        Random random = new Random(42);
+
+        ArrayList<EVCharger> chargers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            EVCharger template = recorded.get(i % recorded.size());
+            LatLng location = new LatLng(-37.2 + random.nextDouble() * 0.8, 174.4 + random.nextDouble() * 0.8);
+            chargers.add(new EVCharger(i + 1, template.getTitle(), template.getDescription(), template.getAddress(),
+                    template.getPoints(), template.getTariff(), location));
+        }
+        return chargers;
+    }
+
+    /**
+     * Returns the recorded POI objects without the surrounding array brackets.
+     */
+    static synchronized String recordedPois() throws IOException {
+        if (pois == null) {
+            try (InputStream in = PoiFixtures.class.getClassLoader().getResourceAsStream(RECORDED_RESPONSE)) {
+                if (in == null) {
+                    throw new IOException("Missing fixture " + RECORDED_RESPONSE);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                String json = new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+                pois = json.substring(1, json.length() - 1).trim();
+            }
+        }
+        return pois;
+    }
+
+    private static int recordedCount() throws IOException {
+        return OcmPoiParser.parse(new StringReader("[" + recordedPois() + "]")).size();
+    }
+
+    /**
+     * Cuts the POI list after the given number of top-level objects.
+     */
+    private static String firstPois(String body, int count) {
+        int depth = 0;
+        int seen = 0;
+        boolean inString = false;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0 && ++seen == count) {
+                return body.substring(0, i + 1);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,37 @@
+package com.google.android.gms.maps.model;
+
+/**
+ * JVM stand-in for the Maps SDK class, with the same fields and value semantics.
+ * Like the real class it is not {@link java.io.Serializable}.
+ */
+public final class LatLng {
+    public final double latitude;
+    public final double longitude;
+
+    public LatLng(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LatLng)) return false;
+        LatLng other = (LatLng) o;
+        return Double.doubleToLongBits(latitude) == Double.doubleToLongBits(other.latitude)
+                && Double.doubleToLongBits(longitude) == Double.doubleToLongBits(other.longitude);
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(latitude);
+        int result = 31 + (int) (bits ^ (bits >>> 32));
+        bits = Double.doubleToLongBits(longitude);
+        return result * 31 + (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "lat/lng: (" + latitude + "," + longitude + ")";
+    }
+}
@@ -0,0 +1,38 @@
+// Startup benchmarks and Baseline Profile generation for the app, run on a device or emulator.
+// Measure with ./gradlew :macrobenchmark:connectedBenchmarkReleaseAndroidTest
+// Regenerate the profile with ./gradlew :app:generateBaselineProfile
+plugins {
+    alias(libs.plugins.android.test)
+    alias(libs.plugins.baselineprofile)
+}
+
+android {
+    namespace = "com.example.assignmentthree.macrobenchmark"
+    compileSdk = 34
+
+    defaultConfig {
+        // Baseline Profiles can be generated without root from API 28
+        minSdk = 28
+        targetSdk = 34
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+
+    targetProjectPath = ":app"
+}
+
+// Collect the profile on a connected device rather than a managed one
+baselineProfile {
+    useConnectedDevices = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
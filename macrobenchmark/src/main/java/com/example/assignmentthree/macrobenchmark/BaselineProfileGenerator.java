@@ -0,0 +1,61 @@
+package com.example.assignmentthree.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiObject2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import kotlin.Unit;
+
+/**
+ * Generates the app's Baseline Profile from the startup journey: launching MainActivity, opening
+ * MapsActivity and panning the map once, so marker clustering is compiled too. The rules are also
+ * used as the startup profile, which lays the startup classes out together in the primary dex file.
+ *
+ * <p>Run with {@code ./gradlew :app:generateBaselineProfile}; the result is copied into the app's sources.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    /**
+     * Collects the profile until it is stable across runs.
+     *
+     * @throws IOException if the location permission cannot be granted.
+     */
+    @Test
+    public void generate() throws IOException {
+        Journeys.grantLocationPermission();
+
+        baselineProfileRule.collect(
+                Journeys.PACKAGE_NAME,
+                15,
+                3,
+                null,
+                true,
+                false,
+                rule -> true,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    Journeys.openMaps(scope);
+
+                    // Pan the map, which loads and clusters the chargers for the new area
+                    UiObject2 map = scope.getDevice().findObject(By.res(Journeys.PACKAGE_NAME, "mapFragment"));
+                    if (map != null) {
+                        map.swipe(Direction.LEFT, 0.5f);
+                        scope.getDevice().waitForIdle();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+}
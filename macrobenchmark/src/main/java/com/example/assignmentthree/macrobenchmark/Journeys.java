@@ -0,0 +1,49 @@
+package com.example.assignmentthree.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+
+/**
+ * The user journeys shared by the startup benchmarks and the Baseline Profile generator.
+ */
+final class Journeys {
+    /** The package of the app under test. */
+    static final String PACKAGE_NAME = "com.example.assignmentthree";
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private Journeys() {
+    }
+
+    /**
+     * Grants the location permission up front, so the permission dialog does not get in the way of MapsActivity.
+     *
+     * @throws IOException if the shell command cannot be run.
+     */
+    static void grantLocationPermission() throws IOException {
+        UiDevice device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
+        device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.ACCESS_FINE_LOCATION");
+        device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.ACCESS_COARSE_LOCATION");
+    }
+
+    /**
+     * Opens MapsActivity from MainActivity's start button, the way users reach it. MapsActivity is not
+     * exported, so it cannot be launched directly from the shell.
+     *
+     * @param scope The benchmark scope, with MainActivity already started.
+     */
+    static void openMaps(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 start = device.wait(Until.findObject(By.res(PACKAGE_NAME, "startButton")), TIMEOUT_MILLIS);
+        start.click();
+
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "sv_searchPlace")), TIMEOUT_MILLIS);
+        device.waitForIdle();
+    }
+}
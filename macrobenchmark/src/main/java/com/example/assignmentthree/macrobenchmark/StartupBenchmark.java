@@ -0,0 +1,138 @@
+package com.example.assignmentthree.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Measures cold and warm start of MainActivity and MapsActivity, once without ahead-of-time compilation
+ * and once with the Baseline Profile, to show what the profile saves. MainActivity is measured with the
+ * system's startup timings; MapsActivity, which is opened from MainActivity, with the trace sections
+ * around its onCreate and onMapReady.
+ */
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final CompilationMode compilationMode;
+
+    /**
+     * Runs every benchmark without compilation and with the Baseline Profile.
+     *
+     * @return The compilation modes.
+     */
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> compilationModes() {
+        return Arrays.asList(new Object[][]{
+                {new CompilationMode.None()},
+                {new CompilationMode.Partial(BaselineProfileMode.Require, 0)}
+        });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param compilationMode How the app is compiled before measuring.
+     */
+    public StartupBenchmark(CompilationMode compilationMode) {
+        this.compilationMode = compilationMode;
+    }
+
+    /**
+     * Grants the location permission, so MapsActivity starts the same way in every iteration.
+     *
+     * @throws IOException if the permission cannot be granted.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Journeys.grantLocationPermission();
+    }
+
+    /**
+     * Measures MainActivity starting in a new process.
+     */
+    @Test
+    public void mainActivityColdStart() {
+        measureMainActivity(StartupMode.COLD);
+    }
+
+    /**
+     * Measures MainActivity being recreated in a running process.
+     */
+    @Test
+    public void mainActivityWarmStart() {
+        measureMainActivity(StartupMode.WARM);
+    }
+
+    /**
+     * Measures opening MapsActivity right after the process has started.
+     */
+    @Test
+    public void mapsActivityColdStart() {
+        measureMapsActivity(StartupMode.COLD);
+    }
+
+    /**
+     * Measures opening MapsActivity in a running process.
+     */
+    @Test
+    public void mapsActivityWarmStart() {
+        measureMapsActivity(StartupMode.WARM);
+    }
+
+    private void measureMainActivity(StartupMode startupMode) {
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private void measureMapsActivity(StartupMode startupMode) {
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE_NAME,
+                Arrays.asList(
+                        new TraceSectionMetric("MapsActivity.onCreate"),
+                        new TraceSectionMetric("MapsActivity.onMapReady")),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    Journeys.openMaps(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}